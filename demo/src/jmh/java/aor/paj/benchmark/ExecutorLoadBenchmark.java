@@ -0,0 +1,77 @@
+package aor.paj.benchmark;
+
+import aor.paj.bean.AsyncExecutorBean;
+import aor.paj.dto.ExecutorStatsDto;
+import aor.paj.utils.ExecutorPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+//Load test of the DB pool of AsyncExecutorBean: the fixed pool of platform threads against one virtual thread per task
+//bounded by the connections of the datasource. Both run at most "connections" queries at once, the platform pool with one
+//thread per connection and the virtual mode with a semaphore. 256 clients send requests at the same time and each request
+//waits 5 ms, like a query to MySQL. Throughput gives the requests per second and SampleTime gives the p99 latency. The
+//virtual runs fail on a JVM older than Java 21, run them with: mvn -Pbenchmarks,java21
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(256)
+public class ExecutorLoadBenchmark {
+
+    private static final long QUERY_MILLIS = 5;
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    //Connections of the datasource, 20 is the default of WildFly. The platform pool gets as many threads
+    @Param({"20", "200"})
+    int connections;
+
+    private AsyncExecutorBean asyncExecutorBean;
+
+    @Setup
+    public void setup() {
+        System.setProperty("aor.paj.executor.virtualThreads", Boolean.toString(mode.equals("virtual")));
+        System.setProperty("aor.paj.executor.db.threads", Integer.toString(connections));
+        System.setProperty("aor.paj.executor.db.connections", Integer.toString(connections));
+        //Large enough that no request is rejected, only the time spent waiting is measured
+        System.setProperty("aor.paj.executor.db.queue", "10000");
+        asyncExecutorBean = new AsyncExecutorBean();
+        asyncExecutorBean.init();
+        for (ExecutorStatsDto stats : asyncExecutorBean.getStats()) {
+            if (stats.getName().equals(ExecutorPool.DB.getName()) && stats.isVirtual() != mode.equals("virtual")) {
+                throw new IllegalStateException("Virtual threads need Java 21");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncExecutorBean.shutdown();
+        System.clearProperty("aor.paj.executor.virtualThreads");
+        System.clearProperty("aor.paj.executor.db.threads");
+        System.clearProperty("aor.paj.executor.db.connections");
+        System.clearProperty("aor.paj.executor.db.queue");
+    }
+
+    @Benchmark
+    public String request() {
+        return asyncExecutorBean.supply(ExecutorPool.DB, () -> {
+            try {
+                Thread.sleep(QUERY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "tasks";
+        }).join();
+    }
+}
@@ -0,0 +1,70 @@
+package aor.paj.benchmark;
+
+import aor.paj.dto.CategoryDto;
+import aor.paj.dto.TaskDto;
+import aor.paj.dto.TaskPageDto;
+import aor.paj.dto.UserDto;
+import aor.paj.utils.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Benchmarks of the JsonUtils serialization with the bodies the services send back
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int size;
+
+    private List<TaskDto> tasks;
+    private TaskPageDto taskPage;
+    private List<UserDto> users;
+    private List<CategoryDto> categories;
+
+    @Setup
+    public void setup() {
+        tasks = Payloads.taskDtos(size);
+        taskPage = new TaskPageDto(tasks, "eyJwIjozMDAsImkiOiIyMDI0LTAxLTAxIiwiaWQiOjQyfQ");
+        users = Payloads.userDtos(size);
+        categories = Payloads.categoryDtos(size);
+    }
+
+    @Benchmark
+    public String tasks() {
+        return JsonUtils.getJsonb().toJson(tasks);
+    }
+
+    //Same list written to a stream, like the JSON-B writer of JAX-RS does with the Jsonb of JsonUtils
+    @Benchmark
+    public int tasksToStream() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        JsonUtils.getJsonb().toJson(tasks, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public String taskPage() {
+        return JsonUtils.getJsonb().toJson(taskPage);
+    }
+
+    @Benchmark
+    public String users() {
+        return JsonUtils.getJsonb().toJson(users);
+    }
+
+    @Benchmark
+    public String categories() {
+        return JsonUtils.getJsonb().toJson(categories);
+    }
+}
@@ -0,0 +1,104 @@
+package aor.paj.benchmark;
+
+import aor.paj.dto.CategoryDto;
+import aor.paj.dto.TaskDto;
+import aor.paj.dto.UserDto;
+import aor.paj.entity.CategoryEntity;
+import aor.paj.entity.TaskEntity;
+import aor.paj.entity.UserEntity;
+import aor.paj.mapper.CategoryMapper;
+import aor.paj.mapper.TaskMapper;
+import aor.paj.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Benchmarks of the mappers, converting as many objects as one request does
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int size;
+
+    private List<TaskEntity> taskEntities;
+    private List<TaskDto> taskDtos;
+    private List<UserEntity> userEntities;
+    private List<UserDto> userDtos;
+    private List<CategoryEntity> categoryEntities;
+    private List<CategoryDto> categoryDtos;
+
+    @Setup
+    public void setup() {
+        taskEntities = Payloads.taskEntities(size);
+        taskDtos = Payloads.taskDtos(size);
+        userEntities = Payloads.userEntities(size);
+        userDtos = Payloads.userDtos(size);
+        categoryEntities = Payloads.categoryEntities(size);
+        categoryDtos = Payloads.categoryDtos(size);
+    }
+
+    @Benchmark
+    public List<TaskDto> taskEntityToDto() {
+        List<TaskDto> result = new ArrayList<>(taskEntities.size());
+        for (TaskEntity taskEntity : taskEntities) {
+            result.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<TaskEntity> taskDtoToEntity() {
+        List<TaskEntity> result = new ArrayList<>(taskDtos.size());
+        for (TaskDto taskDto : taskDtos) {
+            result.add(TaskMapper.convertTaskDtoToTaskEntity(taskDto));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<UserDto> userEntityToDto() {
+        List<UserDto> result = new ArrayList<>(userEntities.size());
+        for (UserEntity userEntity : userEntities) {
+            result.add(UserMapper.convertUserEntityToUserDto(userEntity));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<UserEntity> userDtoToEntity() {
+        List<UserEntity> result = new ArrayList<>(userDtos.size());
+        for (UserDto userDto : userDtos) {
+            result.add(UserMapper.convertUserDtoToUserEntity(userDto));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<CategoryDto> categoryEntityToDto() {
+        List<CategoryDto> result = new ArrayList<>(categoryEntities.size());
+        for (CategoryEntity categoryEntity : categoryEntities) {
+            result.add(CategoryMapper.convertCategoryEntityToCategoryDto(categoryEntity));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<CategoryEntity> categoryDtoToEntity() {
+        List<CategoryEntity> result = new ArrayList<>(categoryDtos.size());
+        for (CategoryDto categoryDto : categoryDtos) {
+            result.add(CategoryMapper.convertCategoryDtoToCategoryEntity(categoryDto));
+        }
+        return result;
+    }
+}
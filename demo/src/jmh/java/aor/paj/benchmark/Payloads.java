@@ -0,0 +1,119 @@
+package aor.paj.benchmark;
+
+import aor.paj.dto.CategoryDto;
+import aor.paj.dto.TaskDto;
+import aor.paj.dto.UserDto;
+import aor.paj.entity.CategoryEntity;
+import aor.paj.entity.TaskEntity;
+import aor.paj.entity.UserEntity;
+import aor.paj.utils.Priority;
+import aor.paj.utils.State;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//Builds the data the benchmarks work on, shaped like what the task board sends and receives
+final class Payloads {
+
+    private static final int USERS = 20;
+    private static final int CATEGORIES = 8;
+    private static final String DESCRIPTION = "Review the sprint backlog, split the stories that are too big and "
+            + "update the estimates before the planning meeting.";
+
+    private Payloads() {
+    }
+
+    static List<UserEntity> userEntities(int count) {
+        List<UserEntity> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UserEntity userEntity = new UserEntity();
+            userEntity.setId(i + 1);
+            userEntity.setUsername("user" + i);
+            userEntity.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOa0BRlVwK3ZHt8m0Ql9jJ9m6B8Dj8o7y");
+            userEntity.setEmail("user" + i + "@scrum.pt");
+            userEntity.setFirstname("First" + i);
+            userEntity.setLastname("Last" + i);
+            userEntity.setPhone("+351 912 345 " + String.format("%03d", i % 1000));
+            userEntity.setPhotoURL("https://images.scrum.pt/users/" + i + ".png");
+            userEntity.setRole(i % 10 == 0 ? "po" : i % 5 == 0 ? "sm" : "dev");
+            userEntity.setActive(true);
+            users.add(userEntity);
+        }
+        return users;
+    }
+
+    static List<CategoryEntity> categoryEntities(int count) {
+        List<UserEntity> owners = userEntities(USERS);
+        List<CategoryEntity> categories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CategoryEntity categoryEntity = new CategoryEntity();
+            categoryEntity.setId(i + 1);
+            categoryEntity.setTitle("Category " + i);
+            categoryEntity.setDescription("Tasks about the area number " + i + " of the project");
+            categoryEntity.setOwner(owners.get(i % owners.size()));
+            categories.add(categoryEntity);
+        }
+        return categories;
+    }
+
+    static List<TaskEntity> taskEntities(int count) {
+        List<UserEntity> owners = userEntities(USERS);
+        List<CategoryEntity> categories = categoryEntities(CATEGORIES);
+        Priority[] priorities = Priority.values();
+        State[] states = State.values();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+
+        List<TaskEntity> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TaskEntity taskEntity = new TaskEntity();
+            taskEntity.setId(i + 1);
+            taskEntity.setTitle("Task " + i);
+            taskEntity.setDescription(DESCRIPTION);
+            taskEntity.setInitialDate(start.plusDays(i % 365));
+            //One task in four has no final date, like on the real board
+            taskEntity.setFinalDate(i % 4 == 0 ? null : start.plusDays(i % 365 + 14));
+            taskEntity.setStatus(states[i % states.length].getValue());
+            taskEntity.setPriority(priorities[i % priorities.length].getValue());
+            taskEntity.setActive(true);
+            taskEntity.setOwner(owners.get(i % owners.size()));
+            taskEntity.setCategory(categories.get(i % categories.size()));
+            tasks.add(taskEntity);
+        }
+        return tasks;
+    }
+
+    static List<TaskDto> taskDtos(int count) {
+        List<TaskDto> tasks = new ArrayList<>(count);
+        for (TaskEntity t : taskEntities(count)) {
+            tasks.add(new TaskDto(t.getId(), t.getTitle(), t.getDescription(), t.getInitialDate(), t.getFinalDate(),
+                    t.getStatus(), t.getPriority(), t.getCategory().getTitle(), t.getOwner().getUsername(), t.getActive(), t.getVersion()));
+        }
+        return tasks;
+    }
+
+    static List<UserDto> userDtos(int count) {
+        List<UserDto> users = new ArrayList<>(count);
+        for (UserEntity u : userEntities(count)) {
+            UserDto userDto = new UserDto(u.getUsername(), u.getPassword(), u.getEmail(), u.getFirstname(),
+                    u.getLastname(), u.getPhone(), u.getPhotoURL());
+            userDto.setRole(u.getRole());
+            userDto.setActive(true);
+            users.add(userDto);
+        }
+        return users;
+    }
+
+    static List<CategoryDto> categoryDtos(int count) {
+        List<CategoryDto> categories = new ArrayList<>(count);
+        for (CategoryEntity c : categoryEntities(count)) {
+            CategoryDto categoryDto = new CategoryDto();
+            categoryDto.setId(c.getId());
+            categoryDto.setTitle(c.getTitle());
+            categoryDto.setDescription(c.getDescription());
+            categoryDto.setOwner(c.getOwner().getUsername());
+            categories.add(categoryDto);
+        }
+        return categories;
+    }
+}
@@ -0,0 +1,71 @@
+package aor.paj.benchmark;
+
+import aor.paj.dto.TaskDto;
+import aor.paj.dto.UserDto;
+import aor.paj.validator.TaskValidator;
+import aor.paj.validator.UserValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//Benchmarks of the validators that run before a task or a user is saved. TaskValidator.isValidCategory is left out
+//because it goes to the database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValidatorBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int size;
+
+    private List<TaskDto> taskDtos;
+    private List<UserDto> userDtos;
+
+    @Setup
+    public void setup() {
+        taskDtos = Payloads.taskDtos(size);
+        userDtos = Payloads.userDtos(size);
+    }
+
+    @Benchmark
+    public int taskDatesAndStatus() {
+        int valid = 0;
+        for (TaskDto taskDto : taskDtos) {
+            if (TaskValidator.isValidDates(taskDto) && TaskValidator.isValidStatus(taskDto.getStatus())) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int userNullOrBlank() {
+        int valid = 0;
+        for (UserDto userDto : userDtos) {
+            if (!UserValidator.isNullorBlank(userDto)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public int userRegexChecks() {
+        int valid = 0;
+        for (UserDto userDto : userDtos) {
+            if (UserValidator.isValidEmail(userDto.getEmail()) && UserValidator.isValidPhoneNumber(userDto.getPhone())
+                    && UserValidator.isValidURL(userDto.getPhotoURL())) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+}
@@ -0,0 +1,280 @@
+package aor.paj.bean;
+
+import aor.paj.dto.ExecutorStatsDto;
+import aor.paj.utils.ExecutorPool;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//Bounded pools that run the slow requests away from the request threads of the server, one pool for each kind of work
+//so slow hashing never waits behind slow queries or the other way around
+@ApplicationScoped
+public class AsyncExecutorBean {
+
+    private static final int DEFAULT_DB_THREADS = 20;
+    //Maximum size of the connection pool of the datasource, the default of WildFly
+    private static final int DEFAULT_DB_CONNECTIONS = 20;
+    private static final int DEFAULT_HASHING_QUEUE = 100;
+    private static final int DEFAULT_DB_QUEUE = 200;
+    private static final long DEFAULT_HASHING_TIMEOUT_SECONDS = 10;
+    private static final long DEFAULT_DB_TIMEOUT_SECONDS = 30;
+
+    //Threads made by the server, so the tasks can call the EJBs and see the application classes
+    @Resource
+    ManagedThreadFactory managedThreadFactory;
+
+    private final Map<ExecutorPool, BoundedPool> pools = new EnumMap<>(ExecutorPool.class);
+
+    //Threads of the DB pool when aor.paj.executor.virtualThreads is set and the JVM has virtual threads (Java 21), or null.
+    //Then every task of the DB pool gets its own virtual thread and aor.paj.executor.db.connections of them run at once
+    private ThreadFactory virtualThreadFactory;
+
+    @PostConstruct
+    public void init() {
+        if (Boolean.getBoolean("aor.paj.executor.virtualThreads")) {
+            virtualThreadFactory = virtualThreadFactory(getClass().getClassLoader());
+        }
+        addPool(ExecutorPool.HASHING,
+                Integer.getInteger("aor.paj.executor.hashing.threads", defaultHashingThreads()),
+                Integer.getInteger("aor.paj.executor.hashing.queue", DEFAULT_HASHING_QUEUE),
+                Long.getLong("aor.paj.executor.hashing.timeoutSeconds", DEFAULT_HASHING_TIMEOUT_SECONDS) * 1000);
+        addPool(ExecutorPool.DB,
+                Integer.getInteger("aor.paj.executor.db.threads", DEFAULT_DB_THREADS),
+                Integer.getInteger("aor.paj.executor.db.queue", DEFAULT_DB_QUEUE),
+                Long.getLong("aor.paj.executor.db.timeoutSeconds", DEFAULT_DB_TIMEOUT_SECONDS) * 1000);
+    }
+
+    //One core is left for the rest of the requests, so a burst of logins never takes all of them
+    private static int defaultHashingThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    void addPool(ExecutorPool name, int threads, int queueCapacity, long timeoutMillis) {
+        //Hashing keeps the CPU busy the whole time, only the pool that waits on the database gains from virtual threads
+        if (name == ExecutorPool.DB && virtualThreadFactory != null) {
+            ExecutorService perTask = threadPerTaskExecutor(virtualThreadFactory);
+            if (perTask != null) {
+                addPerTaskPool(name, perTask, Integer.getInteger("aor.paj.executor.db.connections", DEFAULT_DB_CONNECTIONS),
+                        queueCapacity, timeoutMillis, true);
+                return;
+            }
+        }
+        ThreadFactory threadFactory = managedThreadFactory != null ? managedThreadFactory : Executors.defaultThreadFactory();
+        pools.put(name, new BoundedPool(name, threads, queueCapacity, timeoutMillis, threadFactory));
+    }
+
+    //Pool that starts one thread for each task and lets at most "connections" of them run at once, the others wait for a
+    //free connection without holding a thread of the server
+    void addPerTaskPool(ExecutorPool name, ExecutorService perTask, int connections, int queueCapacity, long timeoutMillis, boolean virtual) {
+        pools.put(name, new BoundedPool(name, perTask, connections, queueCapacity, timeoutMillis, virtual));
+    }
+
+    //Function that returns Executors.newThreadPerTaskExecutor(threadFactory), or null when the JVM is older than Java 21
+    private static ExecutorService threadPerTaskExecutor(ThreadFactory threadFactory) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    //Function that returns a factory of virtual threads, or null when the JVM is older than Java 21. It is found by
+    //reflection so the same code still builds for Java 11. The threads get the class loader of the application, like the
+    //managed threads, so Hibernate and the EJB proxies find the application classes
+    static ThreadFactory virtualThreadFactory(ClassLoader classLoader) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "aor-paj-db-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return task -> {
+                Thread thread = factory.newThread(task);
+                thread.setContextClassLoader(classLoader);
+                return thread;
+            };
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    //Function that returns an executor that runs its tasks one at a time, in order, on a thread of the server. The thread
+    //stops after a minute without work, so an idle client holds no thread
+    public ExecutorService serialExecutor() {
+        ThreadFactory threadFactory = managedThreadFactory != null ? managedThreadFactory : Executors.defaultThreadFactory();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (BoundedPool pool : pools.values()) {
+            pool.executor.shutdown();
+        }
+    }
+
+    //Function that runs the task on the pool and returns a stage with its result. The stage fails with
+    //RejectedExecutionException when the queue of the pool is full, and with TimeoutException when the task waited in the
+    //queue, or for a connection, longer than the timeout of the pool. A task that already started is never timed out, it
+    //may be a write that still commits, so answering "try again" would make the client repeat it
+    public <T> CompletableFuture<T> supply(ExecutorPool executorPool, Supplier<T> task) {
+        BoundedPool pool = pools.get(executorPool);
+        pool.submitted.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pool.timeoutMillis);
+        try {
+            if (pool.connections == null) {
+                pool.executor.execute(() -> run(pool, result, task, System.nanoTime() - deadline > 0));
+            } else {
+                //The tasks that wait for a connection are the queue of this pool, so they are bounded like one
+                if (pool.unfinished.incrementAndGet() > pool.maxRunning + pool.queueCapacity) {
+                    pool.unfinished.decrementAndGet();
+                    throw new RejectedExecutionException("The queue of the " + pool.name.getName() + " pool is full");
+                }
+                try {
+                    pool.executor.execute(() -> runWithConnection(pool, result, deadline, task));
+                } catch (RejectedExecutionException e) {
+                    pool.unfinished.decrementAndGet();
+                    throw e;
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            pool.rejected.increment();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    //Function that waits for a free connection until the deadline and then runs the task on the thread of the task
+    private static <T> void runWithConnection(BoundedPool pool, CompletableFuture<T> result, long deadline, Supplier<T> task) {
+        boolean acquired = false;
+        try {
+            acquired = pool.connections.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            run(pool, result, task, !acquired);
+        } finally {
+            if (acquired) {
+                pool.connections.release();
+            }
+            pool.unfinished.decrementAndGet();
+        }
+    }
+
+    private static <T> void run(BoundedPool pool, CompletableFuture<T> result, Supplier<T> task, boolean expired) {
+        //Cancelled while waiting in the queue, nobody is waiting for the answer any more
+        if (result.isDone()) {
+            return;
+        }
+        //Waited too long in the queue, the client is told to try again before anything was done
+        if (expired) {
+            pool.timedOut.increment();
+            result.completeExceptionally(new TimeoutException("Waited more than " + pool.timeoutMillis
+                    + " ms in the queue of the " + pool.name.getName() + " pool"));
+            return;
+        }
+        T value;
+        try {
+            value = task.get();
+        } catch (Throwable e) {
+            pool.failed.increment();
+            result.completeExceptionally(e);
+            return;
+        }
+        pool.completed.increment();
+        result.complete(value);
+    }
+
+    //Function that returns the size, load and counters of each pool
+    public List<ExecutorStatsDto> getStats() {
+        List<ExecutorStatsDto> stats = new ArrayList<>();
+        for (BoundedPool pool : pools.values()) {
+            stats.add(pool.getStats());
+        }
+        return stats;
+    }
+
+    //Function that returns the size, load and counters of one pool, or null if it was not started
+    public ExecutorStatsDto getStats(ExecutorPool executorPool) {
+        BoundedPool pool = pools.get(executorPool);
+        return pool != null ? pool.getStats() : null;
+    }
+
+    private static final class BoundedPool {
+        private final ExecutorPool name;
+        private final ExecutorService executor;
+        //The fixed pool of platform threads, or null when each task gets its own thread
+        private final ThreadPoolExecutor threadPool;
+        //Free connections of a pool with one thread per task, or null for the fixed pool
+        private final Semaphore connections;
+        private final int maxRunning;
+        //Tasks of a pool with one thread per task that were accepted and did not finish yet
+        private final AtomicInteger unfinished = new AtomicInteger();
+        private final int queueCapacity;
+        private final long timeoutMillis;
+        private final boolean virtual;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+
+        private BoundedPool(ExecutorPool name, int threads, int queueCapacity, long timeoutMillis, ThreadFactory threadFactory) {
+            this.name = name;
+            this.virtual = false;
+            this.queueCapacity = queueCapacity;
+            this.timeoutMillis = timeoutMillis;
+            this.maxRunning = threads;
+            this.connections = null;
+            //Fixed size, the threads stop after a minute without work. A full queue rejects the task at once instead of
+            //making the request thread run it
+            this.threadPool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+            this.threadPool.allowCoreThreadTimeOut(true);
+            this.executor = threadPool;
+        }
+
+        private BoundedPool(ExecutorPool name, ExecutorService perTask, int connections, int queueCapacity, long timeoutMillis, boolean virtual) {
+            this.name = name;
+            this.virtual = virtual;
+            this.queueCapacity = queueCapacity;
+            this.timeoutMillis = timeoutMillis;
+            this.maxRunning = connections;
+            //Sized to the datasource pool, more queries at once would only wait inside the datasource for a connection
+            this.connections = new Semaphore(connections);
+            this.threadPool = null;
+            this.executor = perTask;
+        }
+
+        private ExecutorStatsDto getStats() {
+            int active = threadPool != null ? threadPool.getActiveCount() : maxRunning - connections.availablePermits();
+            int queued = threadPool != null ? threadPool.getQueue().size() : Math.max(0, unfinished.get() - active);
+            return new ExecutorStatsDto(name.getName(), maxRunning, active, queued, queueCapacity, timeoutMillis,
+                    submitted.sum(), completed.sum(), failed.sum(), rejected.sum(), timedOut.sum(), virtual);
+        }
+    }
+}
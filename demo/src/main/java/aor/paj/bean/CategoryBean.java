@@ -1,22 +1,29 @@
 package aor.paj.bean;
 
 import aor.paj.dao.CategoryDao;
-import aor.paj.dao.TaskDao;
 import aor.paj.dao.UserDao;
+import aor.paj.dto.BatchResultDto;
 import aor.paj.dto.CategoryDto;
-import aor.paj.dto.TaskDto;
 import aor.paj.entity.CategoryEntity;
 import aor.paj.entity.TaskEntity;
 import aor.paj.entity.UserEntity;
 import aor.paj.mapper.CategoryMapper;
 import aor.paj.mapper.TaskMapper;
 import aor.paj.mapper.UserMapper;
+import aor.paj.utils.IdSequence;
+import aor.paj.utils.VersionedCollection;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @ApplicationScoped
 public class CategoryBean {
@@ -27,22 +34,45 @@ public class CategoryBean {
     @EJB
     UserDao userDao;
 
-    @EJB
-    TaskDao taskDao;
-
     @Inject
     UserBean userbean;
 
+    @Inject
+    IdGeneratorBean idGeneratorBean;
+
+    @Inject
+    CategoryCatalogueBean categoryCatalogueBean;
+
+    @Inject
+    CollectionVersionBean collectionVersionBean;
+
+    @Inject
+    TaskCounterBean taskCounterBean;
+
     //Function that gets all categories from database my sql
     public List<CategoryDto> getAllCategories() {
         List<CategoryEntity> categoryEntities = categoryDao.getAllCategories();
         List<CategoryDto> categoryDtos = new ArrayList<>();
         for (CategoryEntity categoryEntity : categoryEntities) {
-            categoryDtos.add(CategoryMapper.convertCategoryEntityToCategoryDto(categoryEntity));
+            categoryDtos.add(toCategoryDto(categoryEntity));
         }
         return categoryDtos;
     }
 
+    //Function that sends each category to the consumer, mapped one at a time from the catalogue, without building a list
+    public void streamAllCategories(Consumer<CategoryDto> consumer) {
+        for (CategoryEntity categoryEntity : categoryCatalogueBean.getAll()) {
+            consumer.accept(toCategoryDto(categoryEntity));
+        }
+    }
+
+    //Function that maps the category with its number of active tasks, taken from the counters
+    private CategoryDto toCategoryDto(CategoryEntity categoryEntity) {
+        CategoryDto categoryDto = CategoryMapper.convertCategoryEntityToCategoryDto(categoryEntity);
+        categoryDto.setTaskCount((int) taskCounterBean.countActiveByCategory(categoryEntity.getId()));
+        return categoryDto;
+    }
+
     //Function that returns the categories of tasks that are active in the database my sql, firts gets the tasks that are active and then gets the categories of those tasks
 //    public List<CategoryDto> getActiveCategories() {
 //        List<TaskEntity> taskEntities = taskDao.getActiveTasks();
@@ -54,45 +84,50 @@ public class CategoryBean {
 //        return categoryDtos;
 //    }
 
-    //Function that receives a category title, checks if there is any task with the category, if not, deletes the category
+    //Function that receives a category title, checks if there is any task with the category, if not, deletes the category.
+    //Inactive tasks count too, they still reference the category
     public boolean deleteCategory(String title) {
-        CategoryEntity categoryEntity = categoryDao.findCategoryByTitle(title);
-        List<TaskEntity> taskEntities = taskDao.findTasksByCategory(categoryEntity);
-        if (taskEntities.isEmpty()) {
-            categoryDao.deleteCategory(categoryEntity);
-            return true;
-        }
-        return false;
+        return deleteCategory(categoryCatalogueBean.findByTitle(title));
     }
 
     public boolean deleteCategory(int id) {
-        CategoryEntity categoryEntity = categoryDao.findCategoryById(id);
-        List<TaskEntity> taskEntities = taskDao.findTasksByCategory(categoryEntity);
-        if (taskEntities.isEmpty()) {
+        return deleteCategory(categoryCatalogueBean.findById(id));
+    }
+
+    private boolean deleteCategory(CategoryEntity categoryEntity) {
+        if (categoryEntity == null) {
+            return false;
+        }
+        if (taskCounterBean.countByCategory(categoryEntity.getId()) == 0) {
             categoryDao.deleteCategory(categoryEntity);
+            categoryCatalogueBean.remove(categoryEntity.getId());
+            collectionVersionBean.bump(VersionedCollection.CATEGORIES);
             return true;
         }
         return false;
     }
 
     public boolean updateCategory(CategoryDto categoryDto, String title) {
-        CategoryEntity categoryEntity = categoryDao.findCategoryByTitle(title);
-        if (categoryEntity == null) {
-            return false;
-        }
-        categoryEntity.setTitle(categoryDto.getTitle());
-        categoryEntity.setDescription(categoryDto.getDescription());
-        categoryDao.merge(categoryEntity);
-        return true;
+        return updateCategory(categoryDto, categoryCatalogueBean.findByTitle(title));
     }
     public boolean updateCategory(CategoryDto categoryDto, int id) {
-        CategoryEntity categoryEntity = categoryDao.findCategoryById(id);
+        return updateCategory(categoryDto, categoryCatalogueBean.findById(id));
+    }
+
+    //The category of the catalogue is shared by every reader, so the update is made on a copy loaded from the database, that then replaces it
+    private boolean updateCategory(CategoryDto categoryDto, CategoryEntity cached) {
+        if (cached == null) {
+            return false;
+        }
+        CategoryEntity categoryEntity = categoryDao.find(cached.getId());
         if (categoryEntity == null) {
             return false;
         }
         categoryEntity.setTitle(categoryDto.getTitle());
         categoryEntity.setDescription(categoryDto.getDescription());
         categoryDao.merge(categoryEntity);
+        categoryCatalogueBean.put(categoryEntity);
+        collectionVersionBean.bump(VersionedCollection.CATEGORIES);
         return true;
     }
 
@@ -107,7 +142,7 @@ public class CategoryBean {
         if (categoryDto.getTitle().length() > 255 || categoryDto.getDescription().length() > 255) {
             return false;
         }
-        if(categoryDao.findCategoryByTitle(categoryDto.getTitle()) != null){
+        if(categoryCatalogueBean.titleExists(categoryDto.getTitle())){
             return false;
         }
 
@@ -124,7 +159,7 @@ public class CategoryBean {
         if (categoryDto.getTitle().length() > 255 || categoryDto.getDescription().length() > 255) {
             return false;
         }
-        if(categoryDao.findCategoryByTitle(categoryDto.getTitle()) != null && !categoryDto.getTitle().toLowerCase().equals(originalTitle.toLowerCase())){
+        if(categoryCatalogueBean.titleExists(categoryDto.getTitle()) && !categoryDto.getTitle().toLowerCase().equals(originalTitle.toLowerCase())){
             return false;
         }
 
@@ -139,31 +174,82 @@ public class CategoryBean {
         categoryEntity.setOwner(userEntity);
         categoryEntity.setId(generateIdDataBase());
         categoryDao.addCategory(categoryEntity);
+        categoryCatalogueBean.put(categoryEntity);
+        collectionVersionBean.bump(VersionedCollection.CATEGORIES);
         return true;
     }
 
-    //Function that receives a category title and returns the number of tasks with that category
+    //Function that receives a chunk of the categories of an export and creates, in one transaction, the ones whose title
+    //is not used yet, keeping their owner. The owners are read in one query. Returns the outcome of each categorydto in order
+    public List<BatchResultDto> importCategories(List<CategoryDto> categoryDtos) {
+        Set<String> usernames = new HashSet<>();
+        for (CategoryDto categoryDto : categoryDtos) {
+            if (categoryDto != null && categoryDto.getOwner() != null) {
+                usernames.add(categoryDto.getOwner());
+            }
+        }
+        Map<String, UserEntity> owners = new HashMap<>();
+        for (UserEntity userEntity : userDao.findUsersByUsernames(usernames)) {
+            owners.put(userEntity.getUsername().toLowerCase(Locale.ROOT), userEntity);
+        }
+
+        List<BatchResultDto> results = new ArrayList<>(categoryDtos.size());
+        List<CategoryEntity> categoryEntities = new ArrayList<>();
+        Set<String> usedTitles = new HashSet<>();
+        for (int i = 0; i < categoryDtos.size(); i++) {
+            CategoryDto categoryDto = categoryDtos.get(i);
+            if (categoryDto == null || categoryDto.getTitle() == null || categoryDto.getTitle().isBlank()) {
+                results.add(new BatchResultDto(i, null, 400, "Verify the fields"));
+                continue;
+            }
+            UserEntity userEntity = categoryDto.getOwner() != null ? owners.get(categoryDto.getOwner().toLowerCase(Locale.ROOT)) : null;
+            if (userEntity == null) {
+                results.add(new BatchResultDto(i, null, 400, "Owner does not exist"));
+                continue;
+            }
+            if (categoryCatalogueBean.titleExists(categoryDto.getTitle()) || !usedTitles.add(categoryDto.getTitle().toLowerCase(Locale.ROOT))) {
+                results.add(new BatchResultDto(i, null, 409, "Title is unique"));
+                continue;
+            }
+            CategoryEntity categoryEntity = CategoryMapper.convertCategoryDtoToCategoryEntity(categoryDto);
+            categoryEntity.setOwner(userEntity);
+            categoryEntities.add(categoryEntity);
+            results.add(new BatchResultDto(i, null, 201, "Category is added"));
+        }
+        if (categoryEntities.isEmpty()) {
+            return results;
+        }
+
+        int nextId = idGeneratorBean.nextIds(IdSequence.CATEGORY, categoryEntities.size());
+        for (CategoryEntity categoryEntity : categoryEntities) {
+            categoryEntity.setId(nextId++);
+        }
+        categoryDao.persistAll(categoryEntities);
+        int created = 0;
+        for (BatchResultDto result : results) {
+            if (result.getStatus() == 201) {
+                result.setId(categoryEntities.get(created++).getId());
+            }
+        }
+        //One new snapshot for the whole chunk instead of one for each category
+        categoryCatalogueBean.load();
+        collectionVersionBean.bump(VersionedCollection.CATEGORIES);
+        return results;
+    }
+
+    //Function that receives a category title and returns the number of active tasks with that category
     public int getNumberOfTasksByCategory(String title) {
-        CategoryEntity categoryEntity = categoryDao.findCategoryByTitle(title);
-        List<TaskEntity> taskEntities = taskDao.findTasksByCategory(categoryEntity);
-        return taskEntities.size();
+        CategoryEntity categoryEntity = categoryCatalogueBean.findByTitle(title);
+        if (categoryEntity == null) {
+            return 0;
+        }
+        return (int) taskCounterBean.countActiveByCategory(categoryEntity.getId());
     }
 
 
-    //Function that verifys all categories in the database my sql and generates a unique id for new category
+    //Function that generates a unique id for new category from the block of ids reserved in memory
     public int generateIdDataBase() {
-        int id = 1;
-        boolean idAlreadyExists;
-
-        do {
-            idAlreadyExists = false;
-            CategoryEntity categoryEntity = categoryDao.findCategoryById(id);
-            if (categoryEntity != null) {
-                id++;
-                idAlreadyExists = true;
-            }
-        } while (idAlreadyExists);
-        return id;
+        return idGeneratorBean.nextId(IdSequence.CATEGORY);
     }
 
     public void createDefaultCategoryIfNotExistent() {
@@ -0,0 +1,128 @@
+package aor.paj.bean;
+
+import aor.paj.dao.CategoryDao;
+import aor.paj.entity.CategoryEntity;
+import jakarta.ejb.EJB;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+@ApplicationScoped
+public class CategoryCatalogueBean {
+
+    @EJB
+    CategoryDao categoryDao;
+
+    //Snapshot of all the categories, never changed in place: every write builds a new one, so readers need no lock
+    private volatile Catalogue catalogue;
+
+    //Taken by the writers only. A lock and not synchronized, because load queries the database while holding it
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    //Function that loads all categories from the database and replaces the snapshot, called at startup
+    public void load() {
+        writeLock.lock();
+        try {
+            List<CategoryEntity> categories = categoryDao.getAllCategories();
+            catalogue = new Catalogue(categories != null ? categories : Collections.emptyList());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //Function that receives a category title and returns the category, or null if there is none. Titles are compared ignoring case, like the database does
+    public CategoryEntity findByTitle(String title) {
+        if (title == null) {
+            return null;
+        }
+        return current().byTitle.get(key(title));
+    }
+
+    //Function that receives a category id and returns the category, or null if there is none
+    public CategoryEntity findById(int id) {
+        return current().byId.get(id);
+    }
+
+    //Function that receives a category id and returns its title, or null if there is none
+    public String getTitle(int id) {
+        CategoryEntity categoryEntity = findById(id);
+        return categoryEntity != null ? categoryEntity.getTitle() : null;
+    }
+
+    //Function that returns every category of the current snapshot. The collection never changes, later writes build a new snapshot
+    public Collection<CategoryEntity> getAll() {
+        return current().byId.values();
+    }
+
+    //Function that checks if a category with the title already exists
+    public boolean titleExists(String title) {
+        return findByTitle(title) != null;
+    }
+
+    //Function that adds a category, or replaces it if the id already exists, after it was saved in the database
+    public void put(CategoryEntity categoryEntity) {
+        writeLock.lock();
+        try {
+            Map<Integer, CategoryEntity> byId = new HashMap<>(current().byId);
+            byId.put(categoryEntity.getId(), categoryEntity);
+            catalogue = new Catalogue(byId.values());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //Function that removes a category after it was deleted from the database
+    public void remove(int id) {
+        writeLock.lock();
+        try {
+            Map<Integer, CategoryEntity> byId = new HashMap<>(current().byId);
+            if (byId.remove(id) != null) {
+                catalogue = new Catalogue(byId.values());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private Catalogue current() {
+        Catalogue current = catalogue;
+        if (current == null) {
+            writeLock.lock();
+            try {
+                if (catalogue == null) {
+                    load();
+                }
+                current = catalogue;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private static String key(String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Catalogue {
+        private final Map<Integer, CategoryEntity> byId;
+        private final Map<String, CategoryEntity> byTitle;
+
+        private Catalogue(Collection<CategoryEntity> categories) {
+            Map<Integer, CategoryEntity> ids = new HashMap<>();
+            Map<String, CategoryEntity> titles = new HashMap<>();
+            for (CategoryEntity categoryEntity : categories) {
+                ids.put(categoryEntity.getId(), categoryEntity);
+                titles.put(key(categoryEntity.getTitle()), categoryEntity);
+            }
+            this.byId = Collections.unmodifiableMap(ids);
+            this.byTitle = Collections.unmodifiableMap(titles);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package aor.paj.bean;
+
+import aor.paj.utils.VersionedCollection;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ApplicationScoped
+public class CollectionVersionBean {
+
+    //Changes on every start, so a tag sent before a restart never matches the counters of the new run
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Map<VersionedCollection, AtomicLong> versions = new EnumMap<>(VersionedCollection.class);
+
+    public CollectionVersionBean() {
+        for (VersionedCollection collection : VersionedCollection.values()) {
+            versions.put(collection, new AtomicLong());
+        }
+    }
+
+    //Function that returns the current version of the collection
+    public long getVersion(VersionedCollection collection) {
+        return versions.get(collection).get();
+    }
+
+    //Function that marks the collection as changed, called after the write was committed so a reader never sees
+    //the new version together with the old rows
+    public void bump(VersionedCollection collection) {
+        versions.get(collection).incrementAndGet();
+    }
+
+    //Function that returns the value of the strong ETag of a response built from the given collections.
+    //The version is read before the query, so a write racing with the query only makes the next poll download again
+    public String getTag(VersionedCollection... collections) {
+        StringBuilder tag = new StringBuilder(epoch);
+        for (VersionedCollection collection : collections) {
+            tag.append('-').append(collection.getName()).append(getVersion(collection));
+        }
+        return tag.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package aor.paj.bean;
+
+import aor.paj.dto.HibernateStatsDto;
+import aor.paj.dto.RegionStatsDto;
+import aor.paj.utils.CacheRegions;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ApplicationScoped
+public class HibernateStatsBean {
+
+    @PersistenceUnit(unitName = "PersistenceUnit")
+    EntityManagerFactory emf;
+
+    //Function that returns the counters of the second-level and query caches, with the hits, misses and puts of each region
+    public HibernateStatsDto getStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        List<RegionStatsDto> regions = new ArrayList<>();
+        for (String region : CacheRegions.ENTITY_REGIONS) {
+            addRegion(regions, region, statistics.getDomainDataRegionStatistics(region));
+        }
+        for (String region : CacheRegions.QUERY_REGIONS) {
+            addRegion(regions, region, statistics.getQueryRegionStatistics(region));
+        }
+        return new HibernateStatsDto(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(), statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(),
+                statistics.getEntityLoadCount(), statistics.getQueryExecutionCount(), regions);
+    }
+
+    //Query regions only have statistics after their first use, and JCache regions do not report their size, sent as -1
+    private void addRegion(List<RegionStatsDto> regions, String name, CacheRegionStatistics region) {
+        if (region != null) {
+            long size = Math.max(region.getElementCountInMemory(), -1);
+            regions.add(new RegionStatsDto(name, size, region.getHitCount(),
+                    region.getMissCount(), region.getPutCount()));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package aor.paj.bean;
+
+import aor.paj.dao.IdBlockDao;
+import aor.paj.utils.IdSequence;
+import jakarta.ejb.EJB;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+@ApplicationScoped
+public class IdGeneratorBean {
+
+    //Number of ids reserved in the database on each round trip
+    static final int BLOCK_SIZE = 50;
+
+    @EJB
+    IdBlockDao idBlockDao;
+
+    private final Map<IdSequence, AtomicReference<IdBlock>> blocks = new EnumMap<>(IdSequence.class);
+
+    //A lock and not synchronized, because the database is called while holding it and a virtual thread that waits
+    //inside synchronized keeps its carrier thread busy
+    private final Map<IdSequence, ReentrantLock> refillLocks = new EnumMap<>(IdSequence.class);
+
+    public IdGeneratorBean() {
+        for (IdSequence sequence : IdSequence.values()) {
+            blocks.put(sequence, new AtomicReference<>(new IdBlock(0, 0)));
+            refillLocks.put(sequence, new ReentrantLock());
+        }
+    }
+
+    //Function that returns a new unique id for the sequence, taken from the block in memory.
+    //Only the thread that finds the block exhausted goes to the database to reserve the next one
+    public int nextId(IdSequence sequence) {
+        AtomicReference<IdBlock> current = blocks.get(sequence);
+        while (true) {
+            IdBlock idBlock = current.get();
+            int id = idBlock.next.getAndIncrement();
+            if (id < idBlock.limit) {
+                return id;
+            }
+            ReentrantLock refillLock = refillLocks.get(sequence);
+            refillLock.lock();
+            try {
+                if (current.get() == idBlock) {
+                    int firstId = idBlockDao.allocateBlock(sequence, BLOCK_SIZE);
+                    current.set(new IdBlock(firstId, firstId + BLOCK_SIZE));
+                }
+            } finally {
+                refillLock.unlock();
+            }
+        }
+    }
+
+    //Function that reserves count consecutive ids of the sequence in one round trip and returns the first one, for the
+    //batch inserts. They do not come from the block in memory, which is left for the single inserts
+    public int nextIds(IdSequence sequence, int count) {
+        return idBlockDao.allocateBlock(sequence, count);
+    }
+
+    private static class IdBlock {
+        private final AtomicInteger next;
+        private final int limit;
+
+        private IdBlock(int first, int limit) {
+            this.next = new AtomicInteger(first);
+            this.limit = limit;
+        }
+    }
+}
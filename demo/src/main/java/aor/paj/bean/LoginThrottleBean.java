@@ -0,0 +1,200 @@
+package aor.paj.bean;
+
+import aor.paj.dto.LoginThrottleStatsDto;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+//Limits the login attempts of each username and of each client address in a sliding window, checked before the user is
+//read from the database or any password is hashed, so guessing passwords costs the attacker a 429 and us almost nothing
+@ApplicationScoped
+public class LoginThrottleBean {
+
+    private static final int DEFAULT_MAX_PER_USER = 5;
+    private static final int DEFAULT_MAX_PER_CLIENT = 20;
+    private static final long DEFAULT_WINDOW_SECONDS = 60;
+    private static final int DEFAULT_MAX_KEYS = 100_000;
+
+    //Each stripe has its own lock and map, so logins of different users rarely wait for each other
+    private static final int STRIPES = 64;
+
+    private final Windows users;
+    private final Windows clients;
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByUser = new LongAdder();
+    private final LongAdder rejectedByClient = new LongAdder();
+
+    public LoginThrottleBean() {
+        this(Integer.getInteger("aor.paj.login.maxPerUser", DEFAULT_MAX_PER_USER),
+                Integer.getInteger("aor.paj.login.maxPerClient", DEFAULT_MAX_PER_CLIENT),
+                Long.getLong("aor.paj.login.windowSeconds", DEFAULT_WINDOW_SECONDS) * 1000,
+                Integer.getInteger("aor.paj.login.maxKeys", DEFAULT_MAX_KEYS),
+                System::currentTimeMillis);
+    }
+
+    LoginThrottleBean(int maxPerUser, int maxPerClient, long windowMillis, int maxKeys, LongSupplier clock) {
+        //A limit of 0 would leave no room in the windows, logins are turned off by other means
+        if (maxPerUser < 1 || maxPerClient < 1) {
+            throw new IllegalArgumentException("Login attempts per user and per client must be at least 1, got "
+                    + maxPerUser + " and " + maxPerClient);
+        }
+        this.users = new Windows(maxPerUser, maxKeys);
+        this.clients = new Windows(maxPerClient, maxKeys);
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    //Function that records a login attempt of the username from the client address. It returns 0 when the attempt may go
+    //on, or the milliseconds until the next attempt is allowed when the user or the client used all the attempts of the window.
+    //The stripes of both keys are held from the check to the record, so a burst of parallel attempts can not all pass the
+    //check before any of them is recorded. The user stripe is always locked first, so two attempts never wait on each other
+    public long tryAcquire(String username, String client) {
+        String userKey = username != null ? username.toLowerCase(Locale.ROOT) : "";
+        String clientKey = client != null ? client : "";
+        long now = clock.getAsLong();
+
+        ReentrantLock userLock = users.lockFor(userKey);
+        ReentrantLock clientLock = clients.lockFor(clientKey);
+        userLock.lock();
+        try {
+            clientLock.lock();
+            try {
+                long userWait = users.waitMillis(userKey, now);
+                if (userWait > 0) {
+                    rejectedByUser.increment();
+                    return userWait;
+                }
+                long clientWait = clients.waitMillis(clientKey, now);
+                if (clientWait > 0) {
+                    rejectedByClient.increment();
+                    return clientWait;
+                }
+                users.record(userKey, now);
+                clients.record(clientKey, now);
+            } finally {
+                clientLock.unlock();
+            }
+        } finally {
+            userLock.unlock();
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    //Function that forgets the failed attempts of the username after a good login, the attempts of the client are kept
+    //because many users may share its address
+    public void reset(String username) {
+        if (username != null) {
+            users.remove(username.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    public LoginThrottleStatsDto getStats() {
+        return new LoginThrottleStatsDto(users.maxAttempts, clients.maxAttempts, windowMillis / 1000, allowed.sum(),
+                rejectedByUser.sum(), rejectedByClient.sum(), users.size(), clients.size());
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    //The windows of one kind of key, split in stripes
+    private final class Windows {
+        private final int maxAttempts;
+        private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+        private final List<Map<String, Window>> maps = new ArrayList<>(STRIPES);
+
+        private Windows(int maxAttempts, int maxKeys) {
+            this.maxAttempts = maxAttempts;
+            int maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i] = new ReentrantLock();
+                //Access order, so when a stripe is full the key not used for longest is dropped, an attacker that sends
+                //many usernames or addresses can only push out old windows and never grow the memory
+                maps.add(new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                        return size() > maxKeysPerStripe;
+                    }
+                });
+            }
+        }
+
+        private ReentrantLock lockFor(String key) {
+            return locks[stripe(key)];
+        }
+
+        //Called with the lock of the stripe of the key held
+        private long waitMillis(String key, long now) {
+            Window window = maps.get(stripe(key)).get(key);
+            return window != null ? window.waitMillis(now) : 0;
+        }
+
+        //Called with the lock of the stripe of the key held
+        private void record(String key, long now) {
+            maps.get(stripe(key)).computeIfAbsent(key, k -> new Window(maxAttempts)).record(now);
+        }
+
+        private void remove(String key) {
+            int i = stripe(key);
+            locks[i].lock();
+            try {
+                maps.get(i).remove(key);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+
+        private int size() {
+            int size = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i].lock();
+                try {
+                    size += maps.get(i).size();
+                } finally {
+                    locks[i].unlock();
+                }
+            }
+            return size;
+        }
+    }
+
+    //Times of the last attempts of one key, oldest first, in a ring as long as the limit
+    private final class Window {
+        private final long[] times;
+        private int next;
+        private int count;
+
+        private Window(int maxAttempts) {
+            this.times = new long[maxAttempts];
+        }
+
+        //Until the oldest of the kept attempts leaves the window, or 0 if there is still room
+        private long waitMillis(long now) {
+            if (count < times.length) {
+                return 0;
+            }
+            long wait = times[next] + windowMillis - now;
+            return wait > 0 ? wait : 0;
+        }
+
+        private void record(long now) {
+            times[next] = now;
+            next = (next + 1) % times.length;
+            if (count < times.length) {
+                count++;
+            }
+        }
+    }
+}
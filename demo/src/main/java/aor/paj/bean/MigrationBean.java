@@ -0,0 +1,33 @@
+package aor.paj.bean;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import org.flywaydb.core.Flyway;
+
+import javax.sql.DataSource;
+
+@Singleton
+@Startup
+public class MigrationBean {
+
+    @Resource(lookup = "java:/SCRUM_DS")
+    DataSource dataSource;
+
+    //Function that applies the pending migrations of db/migration before anything else uses the database.
+    //A database created before the migrations existed is marked as version 1 and only gets the newer ones
+    @PostConstruct
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void migrate() {
+        Flyway.configure(MigrationBean.class.getClassLoader())
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,128 @@
+package aor.paj.bean;
+
+import aor.paj.dto.ExecutorStatsDto;
+import aor.paj.dto.PasswordHashStatsDto;
+import aor.paj.utils.ExecutorPool;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//The only place where passwords are hashed and checked. The services call it from the hashing pool of AsyncExecutorBean,
+//which is sized to the cores and has a bounded queue, so a burst of logins waits there or gets 503 instead of taking
+//every thread of the server
+@ApplicationScoped
+public class PasswordHashBean {
+
+    //Work factor of BCrypt.gensalt(), each step doubles the time of a hash
+    static final int DEFAULT_COST = 10;
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 31;
+
+    //$2a$ or $2b$, two digits of cost, then 22 characters of salt and 31 of hash in the alphabet of BCrypt
+    private static final Pattern BCRYPT_HASH = Pattern.compile("\\$2[ab]\\$(\\d\\d)\\$[./A-Za-z0-9]{53}");
+
+    @Inject
+    AsyncExecutorBean asyncExecutorBean;
+
+    private final int cost;
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder failedVerifications = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public PasswordHashBean() {
+        this(Integer.getInteger("aor.paj.password.cost", DEFAULT_COST));
+    }
+
+    PasswordHashBean(int cost) {
+        this.cost = Math.max(MIN_COST, Math.min(MAX_COST, cost));
+    }
+
+    //Function that returns the BCrypt hash of the password with the configured cost
+    public String hash(String password) {
+        long start = System.nanoTime();
+        String hash = BCrypt.hashpw(password, BCrypt.gensalt(cost));
+        record(start);
+        hashes.increment();
+        return hash;
+    }
+
+    //Function that checks the password against the stored hash, whatever cost the hash was made with
+    public boolean verify(String password, String hash) {
+        long start = System.nanoTime();
+        boolean matches = BCrypt.checkpw(password, hash);
+        record(start);
+        verifications.increment();
+        if (!matches) {
+            failedVerifications.increment();
+        }
+        return matches;
+    }
+
+    //Function that checks if the stored hash was made with another cost than the configured one, so it is hashed again
+    //at the next login, the only time the plain password is known
+    public boolean needsRehash(String hash) {
+        //A BCrypt hash starts with $2a$NN$, NN being the cost
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(6) != '$') {
+            return true;
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6)) != cost;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    //Function that checks if a hash brought from outside, like an import file, is a BCrypt hash at least as strong as the
+    //configured cost, so it can be stored as it is
+    public boolean isAcceptedHash(String hash) {
+        if (hash == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_HASH.matcher(hash);
+        if (!matcher.matches()) {
+            return false;
+        }
+        int hashCost = Integer.parseInt(matcher.group(1));
+        return hashCost >= cost && hashCost <= MAX_COST;
+    }
+
+    //Function that hashes the password again with the configured cost, called after a login with an old hash
+    public String rehash(String password) {
+        rehashes.increment();
+        return hash(password);
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    //Function that returns the counters and latency of the hashing, with the load of the hashing pool
+    public PasswordHashStatsDto getStats() {
+        long operations = hashes.sum() + verifications.sum();
+        PasswordHashStatsDto stats = new PasswordHashStatsDto(cost, hashes.sum(), verifications.sum(), failedVerifications.sum(),
+                rehashes.sum(), operations > 0 ? totalNanos.sum() / operations / 1_000_000.0 : 0, maxNanos.get() / 1_000_000.0);
+        if (asyncExecutorBean != null) {
+            ExecutorStatsDto pool = asyncExecutorBean.getStats(ExecutorPool.HASHING);
+            if (pool != null) {
+                stats.setActive(pool.getActive());
+                stats.setQueued(pool.getQueued());
+                stats.setRejected(pool.getRejected());
+            }
+        }
+        return stats;
+    }
+
+    private void record(long start) {
+        long elapsed = System.nanoTime() - start;
+        totalNanos.add(elapsed);
+        maxNanos.accumulate(elapsed);
+    }
+}
@@ -0,0 +1,36 @@
+package aor.paj.bean;
+
+import aor.paj.dto.SessionDto;
+import jakarta.enterprise.context.RequestScoped;
+
+//Holds the user of the current request, resolved once from the token header by the AuthenticationFilter
+@RequestScoped
+public class PrincipalBean {
+
+    private SessionDto session;
+
+    public SessionDto getSession() {
+        return session;
+    }
+
+    public void setSession(SessionDto session) {
+        this.session = session;
+    }
+
+    //Function that checks if the request carries the token of an active user
+    public boolean isAuthenticated() {
+        return session != null && session.isActive();
+    }
+
+    public int getId() {
+        return session != null ? session.getId() : 0;
+    }
+
+    public String getUsername() {
+        return session != null ? session.getUsername() : null;
+    }
+
+    public String getRole() {
+        return session != null ? session.getRole() : null;
+    }
+}
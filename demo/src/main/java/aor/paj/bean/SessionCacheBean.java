@@ -0,0 +1,171 @@
+package aor.paj.bean;
+
+import aor.paj.dto.CacheStatsDto;
+import aor.paj.dto.SessionDto;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+@ApplicationScoped
+public class SessionCacheBean {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 300;
+
+    private final ConcurrentHashMap<String, CachedSession> sessions = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    //Number of invalidations so far. A request takes it before loading a session from the database, and the session it
+    //loaded is only cached if its token was not invalidated after that, see put(token, session, stamp)
+    private final AtomicLong invalidations = new AtomicLong();
+
+    //Stamp of the last invalidation of each token, kept for the time to live, so a load that started before it is dropped
+    private final ConcurrentHashMap<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+    private volatile long allInvalidatedAt;
+
+    public SessionCacheBean() {
+        this(Integer.getInteger("aor.paj.session.cache.maxEntries", DEFAULT_MAX_ENTRIES),
+                Long.getLong("aor.paj.session.cache.ttlSeconds", DEFAULT_TTL_SECONDS) * 1000,
+                System::currentTimeMillis);
+    }
+
+    SessionCacheBean(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    //Function that returns the cached session of a token, or null if the token is unknown or its entry expired
+    public SessionDto get(String token) {
+        if (token == null) {
+            misses.increment();
+            return null;
+        }
+        CachedSession cached = sessions.get(token);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.expiresAt <= clock.getAsLong()) {
+            if (sessions.remove(token, cached)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.session;
+    }
+
+    //Function that returns the stamp to take before reading a session from the database, to pass to put
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    //Function that caches the session of a token that was just written to the database, like the new token of a login
+    public void put(String token, SessionDto session) {
+        put(token, session, Long.MAX_VALUE);
+    }
+
+    //Function that caches the session of a token read from the database after stamp() returned stamp. If the token was
+    //invalidated since, the session read may be the one before a logout or a change of role, and it is not cached
+    public void put(String token, SessionDto session, long stamp) {
+        if (token == null || session == null || invalidatedSince(token, stamp)) {
+            return;
+        }
+        if (sessions.size() >= maxEntries && !sessions.containsKey(token)) {
+            makeRoom();
+        }
+        CachedSession cached = new CachedSession(session, clock.getAsLong() + ttlMillis);
+        sessions.put(token, cached);
+        //An invalidation that ran between the check and the put is seen here, its tombstone is written before it removes
+        if (invalidatedSince(token, stamp)) {
+            sessions.remove(token, cached);
+        }
+    }
+
+    //Function that removes the session of a token, called whenever the user behind it changes, after the change was committed
+    public void invalidate(String token) {
+        if (token != null) {
+            if (tombstones.size() >= maxEntries) {
+                long now = clock.getAsLong();
+                tombstones.values().removeIf(tombstone -> tombstone.expiresAt <= now);
+            }
+            tombstones.put(token, new Tombstone(invalidations.incrementAndGet(), clock.getAsLong() + ttlMillis));
+            sessions.remove(token);
+        }
+    }
+
+    public void invalidateAll() {
+        allInvalidatedAt = invalidations.incrementAndGet();
+        sessions.clear();
+    }
+
+    private boolean invalidatedSince(String token, long stamp) {
+        if (allInvalidatedAt > stamp) {
+            return true;
+        }
+        Tombstone tombstone = tombstones.get(token);
+        return tombstone != null && tombstone.stamp > stamp;
+    }
+
+    public CacheStatsDto getStats() {
+        return new CacheStatsDto("sessions", sessions.size(), maxEntries, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    //Drops the expired entries and, if the cache is still full, the tenth of the entries closest to expiring,
+    //so a full cache pays for one sort every maxEntries / 10 insertions instead of a scan on each one
+    private void makeRoom() {
+        long now = clock.getAsLong();
+        for (Map.Entry<String, CachedSession> entry : sessions.entrySet()) {
+            if (entry.getValue().expiresAt <= now && sessions.remove(entry.getKey(), entry.getValue())) {
+                evictions.increment();
+            }
+        }
+        if (sessions.size() < maxEntries) {
+            return;
+        }
+        List<Map.Entry<String, CachedSession>> entries = new ArrayList<>(sessions.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt));
+        int toEvict = Math.max(1, maxEntries / 10);
+        for (int i = 0; i < toEvict && i < entries.size(); i++) {
+            Map.Entry<String, CachedSession> entry = entries.get(i);
+            if (sessions.remove(entry.getKey(), entry.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static class Tombstone {
+        private final long stamp;
+        private final long expiresAt;
+
+        private Tombstone(long stamp, long expiresAt) {
+            this.stamp = stamp;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class CachedSession {
+        private final SessionDto session;
+        private final long expiresAt;
+
+        private CachedSession(SessionDto session, long expiresAt) {
+            this.session = session;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,22 +1,32 @@
 package aor.paj.bean;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
 import jakarta.inject.Inject;
 
 @Singleton
 @Startup
+@DependsOn("MigrationBean")
 public class StartupBean {
     @Inject
     UserBean userBean;
     @Inject
     CategoryBean categoryBean;
+    @Inject
+    CategoryCatalogueBean categoryCatalogueBean;
+    @Inject
+    TaskCounterBean taskCounterBean;
 
     @PostConstruct
     public void init() {
         // Chama o método para criar o ProductOwner se não existir
         userBean.createDefaultUsersIfNotExistent();
         categoryBean.createDefaultCategoryIfNotExistent();
+        // Carrega as categorias em memória para não as procurar na base de dados a cada pedido
+        categoryCatalogueBean.load();
+        // Conta as tarefas por categoria, dono e estado, para não as contar na base de dados a cada pedido
+        taskCounterBean.load();
     }
 }
\ No newline at end of file
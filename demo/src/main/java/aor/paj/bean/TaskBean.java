@@ -1,41 +1,79 @@
 package aor.paj.bean;
 
-import aor.paj.dao.CategoryDao;
 import aor.paj.dao.TaskDao;
+import aor.paj.dto.BatchResultDto;
 import aor.paj.dao.UserDao;
+import aor.paj.dto.SessionDto;
 import aor.paj.dto.TaskDto;
+import aor.paj.dto.TaskEventDto;
+import aor.paj.dto.TaskFilterDto;
+import aor.paj.dto.TaskMoveDto;
+import aor.paj.dto.TaskPageDto;
+import aor.paj.dto.TaskStatsDto;
 import aor.paj.dto.UserDto;
 import aor.paj.entity.CategoryEntity;
 import aor.paj.entity.TaskEntity;
 import aor.paj.entity.UserEntity;
 import aor.paj.mapper.TaskMapper;
-import aor.paj.utils.JsonUtils;
+import aor.paj.utils.IdSequence;
 import aor.paj.utils.State;
+import aor.paj.utils.TaskCursor;
+import aor.paj.utils.TaskState;
+import aor.paj.utils.VersionedCollection;
+import aor.paj.validator.TaskValidator;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @ApplicationScoped
 public class TaskBean {
 
+    //Maximum number of tasks changed by each statement of the bulk operations
+    static final int BULK_CHUNK_SIZE = 1000;
+
     @EJB
     UserDao userDao;
 
     @EJB
     TaskDao taskDao;
 
-    @EJB
-    CategoryDao categoryDao;
+    @Inject
+    IdGeneratorBean idGeneratorBean;
+
+    @Inject
+    UserBean userBean;
+
+    @Inject
+    CategoryCatalogueBean categoryCatalogueBean;
 
+    @Inject
+    CollectionVersionBean collectionVersionBean;
 
-   //Function that receives a token and a taskdto and creates a task with the user token as owner and adds the task to the database mysql
-    public boolean addTask(String token, TaskDto taskDto) {
-        UserEntity userEntity = userDao.findUserByToken(token);
-        CategoryEntity categoryEntity = categoryDao.findCategoryByTitle(taskDto.getCategory());
+    @Inject
+    TaskEventBean taskEventBean;
+
+    @Inject
+    TaskCounterBean taskCounterBean;
+
+
+   //Function that receives the session of the user and a taskdto and creates a task with that user as owner and adds the task to the database mysql
+    public boolean addTask(SessionDto session, TaskDto taskDto) {
+        UserEntity userEntity = userDao.find(session.getId());
+        CategoryEntity categoryEntity = categoryCatalogueBean.findByTitle(taskDto.getCategory());
         TaskEntity taskEntity = TaskMapper.convertTaskDtoToTaskEntity(taskDto);
 
         taskEntity.setOwner(userEntity);
@@ -47,9 +85,120 @@ public class TaskBean {
             taskEntity.setInitialDate(LocalDate.now());
         }
         taskDao.persist(taskEntity);
+        taskCounterBean.add(TaskState.of(taskEntity));
+        userBean.invalidateOwners();
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        taskEventBean.publish(TaskEventDto.CREATED, taskEntity.getId(), null, TaskMapper.convertTaskEntityToTaskDto(taskEntity));
         return true;
     }
 
+    //Function that receives the session of the user and many taskdtos and creates, in one transaction, the ones that are
+    //valid, with that user as owner. The titles are checked in one query and the categories in the catalogue, so the cost
+    //does not grow with a round trip per task. Returns the outcome of each taskdto in the order they were received
+    public List<BatchResultDto> addTasks(SessionDto session, List<TaskDto> taskDtos) {
+        UserEntity userEntity = userDao.find(session.getId());
+        List<BatchResultDto> results = new ArrayList<>(taskDtos.size());
+        if (createTasks(taskDtos, taskDto -> userEntity, false, results) > 0) {
+            //One reload instead of an event for each task
+            taskEventBean.publishReload();
+        }
+        return results;
+    }
+
+    //Function that receives a chunk of the tasks of an export and creates them in one transaction, keeping the owner,
+    //status and active of each one. The owners are read in one query. No event is published, POST /import/tasks sends
+    //one reload when the whole file is done
+    public List<BatchResultDto> importTasks(List<TaskDto> taskDtos) {
+        Set<String> usernames = new HashSet<>();
+        for (TaskDto taskDto : taskDtos) {
+            if (taskDto != null && taskDto.getOwner() != null) {
+                usernames.add(taskDto.getOwner());
+            }
+        }
+        Map<String, UserEntity> owners = new HashMap<>();
+        for (UserEntity userEntity : userDao.findUsersByUsernames(usernames)) {
+            owners.put(userEntity.getUsername().toLowerCase(Locale.ROOT), userEntity);
+        }
+        List<BatchResultDto> results = new ArrayList<>(taskDtos.size());
+        createTasks(taskDtos, taskDto -> taskDto.getOwner() != null ? owners.get(taskDto.getOwner().toLowerCase(Locale.ROOT)) : null,
+                true, results);
+        return results;
+    }
+
+    //Function that validates the taskdtos, adds the outcome of each one to results and inserts the valid ones together,
+    //returning how many were inserted. With keepState the status and active of the taskdto are kept, otherwise the task
+    //starts active in TODO like in addTask
+    private int createTasks(List<TaskDto> taskDtos, Function<TaskDto, UserEntity> owners, boolean keepState, List<BatchResultDto> results) {
+        List<String> titles = new ArrayList<>();
+        for (TaskDto taskDto : taskDtos) {
+            if (TaskValidator.isValidTaskFields(taskDto)) {
+                titles.add(taskDto.getTitle());
+            }
+        }
+        //Titles are unique ignoring case in MySQL, so they are compared the same way here
+        Set<String> usedTitles = new HashSet<>();
+        for (String title : taskDao.findExistingTitles(titles)) {
+            usedTitles.add(title.toLowerCase(Locale.ROOT));
+        }
+
+        List<TaskEntity> taskEntities = new ArrayList<>();
+        for (int i = 0; i < taskDtos.size(); i++) {
+            TaskDto taskDto = taskDtos.get(i);
+            if (!TaskValidator.isValidTaskFields(taskDto) || (keepState && (taskDto.getStatus() == null || !TaskValidator.isValidStatus(taskDto.getStatus())))) {
+                results.add(new BatchResultDto(i, null, 400, "Verify the fields"));
+                continue;
+            }
+            CategoryEntity categoryEntity = categoryCatalogueBean.findByTitle(taskDto.getCategory());
+            if (categoryEntity == null) {
+                results.add(new BatchResultDto(i, null, 400, "Category does not exist"));
+                continue;
+            }
+            UserEntity userEntity = owners.apply(taskDto);
+            if (userEntity == null) {
+                results.add(new BatchResultDto(i, null, 400, "Owner does not exist"));
+                continue;
+            }
+            if (!usedTitles.add(taskDto.getTitle().toLowerCase(Locale.ROOT))) {
+                results.add(new BatchResultDto(i, null, 409, "Title is unique"));
+                continue;
+            }
+            TaskEntity taskEntity = TaskMapper.convertTaskDtoToTaskEntity(taskDto);
+            taskEntity.setOwner(userEntity);
+            taskEntity.setActive(!keepState || taskDto.isActive());
+            if (!keepState) {
+                taskEntity.setStatus(State.TODO.getValue());
+            }
+            taskEntity.setCategory(categoryEntity);
+            if(taskEntity.getInitialDate() == null) {
+                taskEntity.setInitialDate(LocalDate.now());
+            }
+            taskEntities.add(taskEntity);
+            results.add(new BatchResultDto(i, null, 201, "Task is added"));
+        }
+        if (taskEntities.isEmpty()) {
+            return 0;
+        }
+
+        int nextId = idGeneratorBean.nextIds(IdSequence.TASK, taskEntities.size());
+        for (TaskEntity taskEntity : taskEntities) {
+            taskEntity.setId(nextId++);
+        }
+        taskDao.persistAll(taskEntities);
+        for (TaskEntity taskEntity : taskEntities) {
+            taskCounterBean.add(TaskState.of(taskEntity));
+        }
+
+        int created = 0;
+        for (BatchResultDto result : results) {
+            if (result.getStatus() == 201) {
+                result.setId(taskEntities.get(created++).getId());
+            }
+        }
+        userBean.invalidateOwners();
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        return taskEntities.size();
+    }
+
     //Function that receives a taskdto and checks in database mysql if a task with the same title already exists
     public boolean taskTitleExists(TaskDto taskDto) {
         TaskEntity taskEntity = taskDao.findTaskByTitle(taskDto.getTitle());
@@ -59,151 +208,328 @@ public class TaskBean {
         return false;
     }
 
-    //Function that generates a unique id for new task checking in database mysql if the id already exists
+    //Function that generates a unique id for new task from the block of ids reserved in memory
     public int generateTaskId() {
-        int id = 1;
-        boolean idAlreadyExists;
-
-        do {
-            idAlreadyExists = false;
-            TaskEntity taskEntity = taskDao.findTaskById(id);
-            if (taskEntity != null) {
-                id++;
-                idAlreadyExists = true;
-            }
-        } while (idAlreadyExists);
-
-        return id;
+        return idGeneratorBean.nextId(IdSequence.TASK);
     }
 
     //Function that returns all tasks from the database mysql
     public List<TaskDto> getAllTasks() {
-        List<TaskEntity> taskEntities = taskDao.getAllTasks();
-        ArrayList<TaskDto> taskDtos = new ArrayList<>();
-        for (TaskEntity taskEntity : taskEntities) {
-            taskDtos.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
+        return taskDao.getAllTasks();
+    }
+    //Function that returns one page of the tasks matching the filter, in board order, starting after the cursor.
+    //Without limit all the matching tasks are returned. One extra task is read to know if there is a next page
+    public TaskPageDto getTasks(TaskFilterDto filter, TaskCursor after, Integer limit) {
+        List<TaskDto> taskDtos = new ArrayList<>(taskDao.findTasks(filter, after, limit != null ? limit + 1 : null));
+        String nextCursor = null;
+        if (limit != null && taskDtos.size() > limit) {
+            taskDtos.remove(taskDtos.size() - 1);
+            TaskDto last = taskDtos.get(taskDtos.size() - 1);
+            nextCursor = new TaskCursor(last.getPriority(), last.getInitialDate(), last.getFinalDate(), last.getId()).encode();
         }
-        return taskDtos;
+        return new TaskPageDto(taskDtos, nextCursor);
+    }
+
+    //Function that sends the tasks matching the filters, in board order and after the cursor, to the consumer as they are read
+    //from the database, for the listings without a limit
+    public int streamTasks(TaskFilterDto filter, TaskCursor after, Consumer<TaskDto> consumer) {
+        return taskDao.streamTasks(filter, after, consumer);
     }
+
+    //Function that sends every task, active or not, to the consumer as it is read from the database, for the export
+    public int streamAllTasks(Consumer<TaskDto> consumer) {
+        return taskDao.streamAllTasks(consumer);
+    }
+
     public List<TaskDto> getActiveTasks() {
-        List<TaskEntity> taskEntities = taskDao.getActiveTasks();
-        ArrayList<TaskDto> taskDtos = new ArrayList<>();
-        for (TaskEntity taskEntity : taskEntities) {
-            taskDtos.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
-        }
-        return taskDtos;
+        return taskDao.getActiveTasks();
     }
     public List<TaskDto> getInactiveTasks(){
-        List<TaskEntity> taskEntities = taskDao.getInactiveTasks();
-        ArrayList<TaskDto> taskDtos = new ArrayList<>();
-        for (TaskEntity taskEntity : taskEntities) {
-            taskDtos.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
+        return taskDao.getInactiveTasks();
+    }
+
+    //Function that receives the session of the user, a task id, a new task status and the version of the task the client
+    //read, and moves the task with a single UPDATE that only applies if the task still has that version, and for a dev only
+    //if the task is theirs, like the moves of updateTaskStatuses, so a move is one round trip. Only when no row changed is
+    //the task read, to tell why. Without a version the task is moved whatever its version, and the boards get the move
+    //without one. Returns 200 when the task was moved, 404 when it does not exist, 403 when a dev moves the task of another
+    //owner and 409 when another change got there first
+    public int updateTaskStatus(SessionDto session, int id, int status, Integer version) {
+        Integer ownerId = editsAnyTask(session) ? null : session.getId();
+        if (!taskDao.updateStatus(id, status, version, ownerId)) {
+            TaskState state = taskDao.findState(id);
+            if (state == null) {
+                return 404;
+            }
+            return ownerId != null && state.getOwnerId() != ownerId ? 403 : 409;
         }
-        return taskDtos;
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        taskEventBean.publishStatus(id, status, version != null ? version + 1 : null);
+        return 200;
     }
 
-    //Function that receives a task id and a new task status and updates the task status in the database mysql
-    public void updateTaskStatus(int id, int status) {
-        TaskEntity taskEntity = taskDao.findTaskById(id);
-        taskEntity.setStatus(status);
-        taskDao.merge(taskEntity);
+    //Function that receives many moves and applies the valid ones in one transaction with one batched UPDATE, each one only
+    //if the task still has the version the client read, like updateTaskStatus. The tasks are read in one query first, the
+    //moves sent without a version use the one read, and a dev may only move their own tasks, like the other card edits
+    //checked by UserBean.hasPermissionToEdit. Returns the outcome of each move in the order they were received
+    public List<BatchResultDto> updateTaskStatuses(SessionDto session, List<TaskMoveDto> moves) {
+        boolean editsAnyTask = editsAnyTask(session);
+        Set<Integer> ids = new HashSet<>();
+        for (TaskMoveDto move : moves) {
+            if (move != null && TaskValidator.isValidStatus(move.getStatus())) {
+                ids.add(move.getId());
+            }
+        }
+        Map<Integer, TaskState> states = ids.isEmpty() ? Map.of() : taskDao.findStates(ids);
+
+        List<BatchResultDto> results = new ArrayList<>(moves.size());
+        List<TaskMoveDto> applied = new ArrayList<>();
+        List<BatchResultDto> appliedResults = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            TaskMoveDto move = moves.get(i);
+            if (move == null || !TaskValidator.isValidStatus(move.getStatus())) {
+                results.add(new BatchResultDto(i, null, 400, "Invalid status"));
+                continue;
+            }
+            TaskState state = states.get(move.getId());
+            if (state == null) {
+                results.add(new BatchResultDto(i, null, 404, "Task does not exist"));
+                continue;
+            }
+            if (!editsAnyTask && state.getOwnerId() != session.getId()) {
+                results.add(new BatchResultDto(i, null, 403, "Forbidden"));
+                continue;
+            }
+            if (move.getExpectedVersion() != null && move.getExpectedVersion() != state.getVersion()) {
+                results.add(new BatchResultDto(i, null, 409, "Task was changed by another user, load it again"));
+                continue;
+            }
+            BatchResultDto result = new BatchResultDto(i, null, 200, "Task status is updated");
+            results.add(result);
+            applied.add(new TaskMoveDto(move.getId(), move.getStatus(), state.getVersion()));
+            appliedResults.add(result);
+        }
+        if (applied.isEmpty()) {
+            return results;
+        }
+
+        int[] updated = taskDao.updateStatuses(applied);
+        List<TaskMoveDto> moved = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            BatchResultDto result = appliedResults.get(i);
+            TaskMoveDto move = applied.get(i);
+            //A task repeated in the request, or changed since it was read, changes no row. Anything but one row changed is
+            //not counted as a move, so no event is sent for a row that may not have changed
+            if (updated[i] != 1) {
+                result.setStatus(409);
+                result.setMessage("Task was changed by another user, load it again");
+                continue;
+            }
+            result.setId(move.getId());
+            moved.add(move);
+        }
+        if (moved.isEmpty()) {
+            return results;
+        }
+
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        //More moves than the history of events keeps could not be replayed to a board that reconnects, they become one reload
+        if (moved.size() > TaskEventBean.HISTORY_SIZE) {
+            taskEventBean.publishReload();
+        } else {
+            for (TaskMoveDto move : moved) {
+                taskEventBean.publishStatus(move.getId(), move.getStatus(), move.getExpectedVersion() + 1);
+            }
+        }
+        return results;
     }
-    
-    //Function that receives a task id and sets the task active to false in the database mysql
-    public boolean desactivateTask(int id) {
+
+    //The sm and the po may move any task, a dev only their own, like the card edits checked by UserBean.hasPermissionToEdit
+    private static boolean editsAnyTask(SessionDto session) {
+        return session.getRole().equals("sm") || session.getRole().equals("po");
+    }
+
+    //Function that returns the number of active tasks by status, category and owner, and of active and inactive tasks.
+    //The statuses are counted with one grouped query on an index, a move changes only the status so it is not counted in
+    //memory. The rest comes from the counters, with the usernames of the owners read in one query
+    public TaskStatsDto getTaskStats() {
+        Map<Integer, Long> statuses = new TreeMap<>();
+        for (Object[] row : taskDao.countActiveByStatus()) {
+            statuses.put((Integer) row[0], (Long) row[1]);
+        }
+        Map<String, Long> categories = new TreeMap<>();
+        for (Map.Entry<Integer, LongAdder> count : taskCounterBean.getActiveByCategory().entrySet()) {
+            String title = categoryCatalogueBean.getTitle(count.getKey());
+            if (title != null && count.getValue().sum() > 0) {
+                categories.put(title, count.getValue().sum());
+            }
+        }
+        Map<Integer, Long> ownerCounts = new HashMap<>();
+        for (Map.Entry<Integer, LongAdder> count : taskCounterBean.getActiveByOwner().entrySet()) {
+            if (count.getValue().sum() > 0) {
+                ownerCounts.put(count.getKey(), count.getValue().sum());
+            }
+        }
+        Map<String, Long> owners = new TreeMap<>();
+        for (Map.Entry<Integer, String> owner : userDao.findUsernamesByIds(ownerCounts.keySet()).entrySet()) {
+            owners.put(owner.getValue(), ownerCounts.get(owner.getKey()));
+        }
+        return new TaskStatsDto(taskCounterBean.countActive(), taskCounterBean.countInactive(), statuses, categories, owners);
+    }
+
+    //Function that receives a task id and sets the task active to false in the database mysql. Returns 200, or 409 when
+    //the task was changed by another user since it was read
+    public int desactivateTask(int id) {
         TaskEntity taskEntity = taskDao.findTaskById(id);
+        TaskState before = TaskState.of(taskEntity);
         taskEntity.setActive(false);
-        taskDao.merge(taskEntity);
-        return true;
+        TaskEntity saved = save(taskEntity);
+        if (saved == null) {
+            return 409;
+        }
+        taskCounterBean.move(before, TaskState.of(saved));
+        userBean.invalidateOwners();
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        taskEventBean.publish(TaskEventDto.DESACTIVATED, id, null, null);
+        return 200;
     }
     
-    //Function that receives a task id and a token and checks if the user its the owner of task with that id
-    public boolean taskBelongsToUser(String token, int id) {
-        UserEntity userEntity = userDao.findUserByToken(token);
-        TaskEntity taskEntity = taskDao.findTaskById(id);
-        if (taskEntity.getOwner().getId() == userEntity.getId()) {
-            return true;
-        }
-        return false;
+    //Function that receives the session of the user and a task id and checks if the user its the owner of task with that id
+    public boolean taskBelongsToUser(SessionDto session, int id) {
+        return taskDao.isTaskOwner(id, session.getId());
     }
 
     //Function that receives a task id and returns the task from the database mysql
     public TaskDto getTaskById(int id) {
-        TaskEntity taskEntity = taskDao.findTaskById(id);
-        return TaskMapper.convertTaskEntityToTaskDto(taskEntity);
+        return taskDao.findTaskDtoById(id);
     }
 
-    public void updateTask(TaskDto taskDto, int id) {
+    //Function that receives a taskdto and a task id and saves the fields of the task. Returns 200, or 409 when the task
+    //was changed by another user since it was read, like a move of its status
+    public int updateTask(TaskDto taskDto, int id) {
         TaskEntity taskEntity = taskDao.findTaskById(id);
+        TaskState before = TaskState.of(taskEntity);
         taskEntity.setTitle(taskDto.getTitle());
         taskEntity.setDescription(taskDto.getDescription());
         taskEntity.setInitialDate(taskDto.getInitialDate());
         taskEntity.setFinalDate(taskDto.getFinalDate());
         taskEntity.setStatus(taskDto.getStatus());
         taskEntity.setPriority(taskDto.getPriority());
-        taskEntity.setCategory(categoryDao.findCategoryByTitle(taskDto.getCategory()));
-        taskDao.merge(taskEntity);
+        taskEntity.setCategory(categoryCatalogueBean.findByTitle(taskDto.getCategory()));
+        TaskEntity saved = save(taskEntity);
+        if (saved == null) {
+            return 409;
+        }
+        taskCounterBean.move(before, TaskState.of(saved));
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        taskEventBean.publish(TaskEventDto.UPDATED, id, null, TaskMapper.convertTaskEntityToTaskDto(saved));
+        return 200;
     }
 
-    //Function that receives a task name and sets the task active to true in the database mysql
-    public boolean restoreTask(String title) {
-        TaskEntity taskEntity = taskDao.findTaskByTitle(title);
-        taskEntity.setActive(true);
-        taskDao.merge(taskEntity);
-        return true;
+    //Function that receives a task name and sets the task active to true in the database mysql. Returns 200, or 409 when
+    //the task was changed by another user since it was read
+    public int restoreTask(String title) {
+        return restore(taskDao.findTaskByTitle(title));
     }
-    public boolean restoreTask(int id) {
-        TaskEntity taskEntity = taskDao.findTaskById(id);
+
+    //Function that receives a task id and sets the task active to true in the database mysql, like restoreTask(title)
+    public int restoreTask(int id) {
+        return restore(taskDao.findTaskById(id));
+    }
+
+    private int restore(TaskEntity taskEntity) {
+        TaskState before = TaskState.of(taskEntity);
         taskEntity.setActive(true);
-        taskDao.merge(taskEntity);
-        return true;
+        TaskEntity saved = save(taskEntity);
+        if (saved == null) {
+            return 409;
+        }
+        taskCounterBean.move(before, TaskState.of(saved));
+        userBean.invalidateOwners();
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        taskEventBean.publish(TaskEventDto.RESTORED, saved.getId(), null, TaskMapper.convertTaskEntityToTaskDto(saved));
+        return 200;
+    }
+
+    //Function that saves a task read before and returns the saved copy with its new version, so the events carry the
+    //version the boards must send next, or null when another change, like a move of its status, got there first
+    private TaskEntity save(TaskEntity taskEntity) {
+        try {
+            return taskDao.update(taskEntity);
+        } catch (RuntimeException e) {
+            //The container wraps the exception of the DAO in an EJBException or EJBTransactionRolledbackException
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof OptimisticLockException) {
+                    return null;
+                }
+            }
+            throw e;
+        }
     }
 
     //Function that receives a task name and deletes the task from the database mysql
     public boolean deleteTask(String title) {
         TaskEntity taskEntity = taskDao.findTaskByTitle(title);
         taskDao.remove(taskEntity);
+        taskCounterBean.remove(TaskState.of(taskEntity));
+        userBean.invalidateOwners();
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        taskEventBean.publish(TaskEventDto.DELETED, taskEntity.getId(), null, null);
         return true;
     }
     public boolean deleteTask(int id) {
         TaskEntity taskEntity = taskDao.findTaskById(id);
         taskDao.remove(taskEntity);
+        taskCounterBean.remove(TaskState.of(taskEntity));
+        userBean.invalidateOwners();
+        collectionVersionBean.bump(VersionedCollection.TASKS);
+        taskEventBean.publish(TaskEventDto.DELETED, id, null, null);
         return true;
     }
 
-    //Function that checks all tasks active = false and sets them to true
-    public boolean restoreAllTasks() {
-        List<TaskEntity> taskEntities = taskDao.getAllTasks();
-        for (TaskEntity taskEntity : taskEntities) {
-            if (!taskEntity.getActive()) {
-                taskEntity.setActive(true);
-                taskDao.merge(taskEntity);
+    //Function that sets all tasks with active = false to true, returns the number of tasks restored.
+    //Each chunk is one statement in its own transaction, so a huge trash never holds locks on every row at once
+    public int restoreAllTasks() {
+        int restored = 0;
+        List<TaskState> chunk;
+        do {
+            chunk = taskDao.restoreInactiveTasks(BULK_CHUNK_SIZE);
+            for (TaskState state : chunk) {
+                taskCounterBean.move(state, state.withActive(true));
             }
+            restored += chunk.size();
+        } while (chunk.size() == BULK_CHUNK_SIZE);
+        if (restored > 0) {
+            userBean.invalidateOwners();
+            collectionVersionBean.bump(VersionedCollection.TASKS);
+            taskEventBean.publishReload();
         }
-        return true;
+        return restored;
     }
 
-    //Function that deletes all tasks from the database mysql that are active = false, returns true if all tasks were deleted
-    public boolean deleteAllTasks() {
-        List<TaskEntity> taskEntities = taskDao.getAllTasks();
-        for (TaskEntity taskEntity : taskEntities) {
-            if (!taskEntity.getActive()) {
-                taskDao.remove(taskEntity);
+    //Function that deletes all tasks from the database mysql that are active = false, returns the number of tasks deleted
+    public int deleteAllTasks() {
+        int deleted = 0;
+        List<TaskState> chunk;
+        do {
+            chunk = taskDao.deleteInactiveTasks(BULK_CHUNK_SIZE);
+            for (TaskState state : chunk) {
+                taskCounterBean.remove(state);
             }
+            deleted += chunk.size();
+        } while (chunk.size() == BULK_CHUNK_SIZE);
+        if (deleted > 0) {
+            collectionVersionBean.bump(VersionedCollection.TASKS);
+            taskEventBean.publishReload();
         }
-        return true;
+        return deleted;
     }
 
 //    //Function that returns list of tasks filtered by category and owner from the database mysql
     public List<TaskDto> getTasksByCategoryAndOwner(String category, String owner){
         UserEntity userEntity = userDao.findUserByUsername(owner);
-        CategoryEntity categoryEntity = categoryDao.findCategoryByTitle(category);
-        List<TaskEntity> taskEntities = taskDao.getTasksByCategoryAndOwner(userEntity, categoryEntity);
-        ArrayList<TaskDto> taskDtos = new ArrayList<>();
-        for (TaskEntity taskEntity : taskEntities) {
-            taskDtos.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
-        }
-        return taskDtos;
+        CategoryEntity categoryEntity = categoryCatalogueBean.findByTitle(category);
+        return taskDao.getTasksByCategoryAndOwner(userEntity, categoryEntity);
     }
 //public List<TaskDto> getActiveTasksByCategoryAndOwnerAndStatus(String category, String owner, Integer status){
 //    UserEntity userEntity = userDao.findUserByUsername(owner);
@@ -219,32 +545,17 @@ public class TaskBean {
 
     //Function that returns list of tasks filtered by category from the database mysql
     public List<TaskDto> getTasksByCategory(String category){
-        CategoryEntity categoryEntity = categoryDao.findCategoryByTitle(category);
-        List<TaskEntity> taskEntities = taskDao.findTasksByCategory(categoryEntity);
-        ArrayList<TaskDto> taskDtos = new ArrayList<>();
-        for (TaskEntity taskEntity : taskEntities) {
-            taskDtos.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
-        }
-        return taskDtos;
+        CategoryEntity categoryEntity = categoryCatalogueBean.findByTitle(category);
+        return taskDao.findTasksByCategory(categoryEntity);
     }
 
     //Function that returns list of tasks filtered by owner from the database mysql
     public List<TaskDto> getTasksByOwner(String owner){
         UserEntity userEntity = userDao.findUserByUsername(owner);
-        List<TaskEntity> taskEntities = taskDao.findTaskByOwnerId(userEntity.getId());
-        ArrayList<TaskDto> taskDtos = new ArrayList<>();
-        for (TaskEntity taskEntity : taskEntities) {
-            taskDtos.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
-        }
-        return taskDtos;
+        return taskDao.findTaskByOwnerId(userEntity.getId());
     }
 
     public List<TaskDto> getActiveStatusTasks(int status) {
-        List<TaskEntity> taskEntities = taskDao.getActiveStatusTasks(status);
-        ArrayList<TaskDto> taskDtos = new ArrayList<>();
-        for (TaskEntity taskEntity : taskEntities) {
-            taskDtos.add(TaskMapper.convertTaskEntityToTaskDto(taskEntity));
-        }
-        return taskDtos;
+        return taskDao.getActiveStatusTasks(status);
     }
 }
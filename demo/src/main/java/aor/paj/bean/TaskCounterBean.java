@@ -0,0 +1,114 @@
+package aor.paj.bean;
+
+import aor.paj.dao.TaskDao;
+import aor.paj.utils.TaskState;
+import jakarta.ejb.EJB;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Number of tasks of each category and owner, active or not, kept in memory so the board and the category checks never count
+//rows. It is loaded with one grouped query at startup only. After that TaskBean and UserBean add, move or remove each
+//task right after its change is committed; the bulk operations of TaskDao lock and return the state of every task they
+//change, so they move the counters by exactly those tasks and the maps are never replaced while the server runs
+@ApplicationScoped
+public class TaskCounterBean {
+
+    @EJB
+    TaskDao taskDao;
+
+    private volatile Counters counters = new Counters();
+
+    //Taken by load only. A lock and not synchronized, because load queries the database while holding it
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    //Function that counts every task in the database and replaces the counters, called at startup before any request
+    public void load() {
+        loadLock.lock();
+        try {
+            Counters loaded = new Counters();
+            for (Object[] row : taskDao.countTasks()) {
+                loaded.add((Integer) row[0], (Integer) row[1], (Boolean) row[2], (Long) row[3]);
+            }
+            counters = loaded;
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    //Function that counts a task that was created
+    public void add(TaskState task) {
+        counters.add(task, 1);
+    }
+
+    //Function that stops counting a task that was deleted
+    public void remove(TaskState task) {
+        counters.add(task, -1);
+    }
+
+    //Function that moves a task that was changed from the counts of its old state to the counts of the new one
+    public void move(TaskState from, TaskState to) {
+        Counters current = counters;
+        current.add(from, -1);
+        current.add(to, 1);
+    }
+
+    //Function that returns the number of tasks of the category, active or not, the ones that keep it from being deleted
+    public long countByCategory(int categoryId) {
+        return sum(counters.byCategory, categoryId);
+    }
+
+    //Function that returns the number of active tasks of the category
+    public long countActiveByCategory(int categoryId) {
+        return sum(counters.activeByCategory, categoryId);
+    }
+
+    public long countActive() {
+        return counters.active.sum();
+    }
+
+    public long countInactive() {
+        return counters.inactive.sum();
+    }
+
+    //The maps below are live views, keyed by category id and owner id, with the number of active tasks of each
+
+    public Map<Integer, LongAdder> getActiveByCategory() {
+        return counters.activeByCategory;
+    }
+
+    public Map<Integer, LongAdder> getActiveByOwner() {
+        return counters.activeByOwner;
+    }
+
+    private static long sum(Map<Integer, LongAdder> counts, int key) {
+        LongAdder count = counts.get(key);
+        return count != null ? count.sum() : 0;
+    }
+
+    private static final class Counters {
+        private final Map<Integer, LongAdder> byCategory = new ConcurrentHashMap<>();
+        private final Map<Integer, LongAdder> activeByCategory = new ConcurrentHashMap<>();
+        private final Map<Integer, LongAdder> activeByOwner = new ConcurrentHashMap<>();
+        private final LongAdder active = new LongAdder();
+        private final LongAdder inactive = new LongAdder();
+
+        private void add(TaskState task, long delta) {
+            add(task.getCategoryId(), task.getOwnerId(), task.isActive(), delta);
+        }
+
+        private void add(int categoryId, int ownerId, boolean isActive, long delta) {
+            byCategory.computeIfAbsent(categoryId, key -> new LongAdder()).add(delta);
+            if (isActive) {
+                activeByCategory.computeIfAbsent(categoryId, key -> new LongAdder()).add(delta);
+                activeByOwner.computeIfAbsent(ownerId, key -> new LongAdder()).add(delta);
+                active.add(delta);
+            } else {
+                inactive.add(delta);
+            }
+        }
+    }
+}
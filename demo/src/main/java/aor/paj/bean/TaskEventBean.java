@@ -0,0 +1,120 @@
+package aor.paj.bean;
+
+import aor.paj.dto.TaskDto;
+import aor.paj.dto.TaskEventDto;
+import aor.paj.utils.JsonUtils;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+@ApplicationScoped
+public class TaskEventBean {
+
+    //Number of past events kept so a client that reconnects can get what it missed instead of loading the board again
+    public static final int HISTORY_SIZE = 1024;
+
+    private final Event[] history = new Event[HISTORY_SIZE];
+
+    //Ids start at the time the server started, so an id sent by a client of the previous run is never taken as one of this run
+    private final long firstId = System.currentTimeMillis();
+    private long lastId = firstId - 1;
+
+    private final Set<Consumer<Event>> subscribers = ConcurrentHashMap.newKeySet();
+
+    //Orders publish and subscribe, so every subscriber gets the events in the order of their ids. The subscribers only
+    //queue the event while it is held, the writes to the connections happen on their own threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    //Function that publishes a change of one task, called by TaskBean after the change was committed
+    public void publish(String type, int taskId, Integer status, TaskDto task) {
+        publish(new TaskEventDto(type, taskId, status, task));
+    }
+
+    //Function that publishes a move of one task with its new version, so the boards can keep moving it without a reload.
+    //The version is null when the move was made without one and is not known
+    public void publishStatus(int taskId, int status, Integer version) {
+        publish(new TaskEventDto(TaskEventDto.STATUS, taskId, status, null, version));
+    }
+
+    //Function that tells every board to load the tasks again, called after bulk changes that touch many tasks
+    public void publishReload() {
+        publish(new TaskEventDto(TaskEventDto.RELOAD, null, null, null));
+    }
+
+    //Function that registers a subscriber, after handing it the events it missed since lastEventId, in order, so no
+    //event is lost or repeated between the two. When the missed events are no longer kept, or the id is unknown, it gets
+    //a reload event instead. The subscriber is called while publishing, so it must only queue the event and never block
+    public void subscribe(Long lastEventId, Consumer<Event> subscriber) {
+        lock.lock();
+        try {
+            if (lastEventId != null) {
+                long oldestKept = Math.max(firstId, lastId - HISTORY_SIZE + 1);
+                if (lastEventId < oldestKept - 1 || lastEventId > lastId) {
+                    //Carries the current id, so after loading the board the client resumes from here
+                    subscriber.accept(new Event(lastId, TaskEventDto.RELOAD,
+                            JsonUtils.getJsonb().toJson(new TaskEventDto(TaskEventDto.RELOAD, null, null, null))));
+                } else {
+                    for (long id = lastEventId + 1; id <= lastId; id++) {
+                        subscriber.accept(history[index(id)]);
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unsubscribe(Consumer<Event> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    //The event is serialized once here and the same text is sent to every connection
+    private void publish(TaskEventDto taskEventDto) {
+        lock.lock();
+        try {
+            Event event = new Event(++lastId, taskEventDto.getType(), JsonUtils.getJsonb().toJson(taskEventDto));
+            history[index(event.getId())] = event;
+            for (Consumer<Event> subscriber : subscribers) {
+                subscriber.accept(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int index(long id) {
+        return (int) Math.floorMod(id, (long) HISTORY_SIZE);
+    }
+
+    public static final class Event {
+        private final long id;
+        private final String type;
+        private final String data;
+
+        private Event(long id, String type, String data) {
+            this.id = id;
+            this.type = type;
+            this.data = data;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getData() {
+            return data;
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package aor.paj.bean;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import aor.paj.dao.CategoryDao;
 import aor.paj.dao.TaskDao;
 import aor.paj.dao.UserDao;
+import aor.paj.dto.BatchResultDto;
+import aor.paj.dto.SessionDto;
 import aor.paj.dto.UserDto;
 import aor.paj.dto.UserPartialDto;
 import aor.paj.dto.UserPasswordUpdateDto;
@@ -15,13 +23,14 @@ import aor.paj.entity.CategoryEntity;
 import aor.paj.entity.TaskEntity;
 import aor.paj.entity.UserEntity;
 import aor.paj.mapper.UserMapper;
-import aor.paj.utils.JsonUtils;
+import aor.paj.utils.IdSequence;
+import aor.paj.utils.TaskState;
+import aor.paj.utils.VersionedCollection;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import org.mindrot.jbcrypt.BCrypt;
 
 @ApplicationScoped
 public class UserBean {
@@ -36,21 +45,35 @@ public class UserBean {
     @EJB
     CategoryDao categoryDao;
 
+    @Inject
+    IdGeneratorBean idGeneratorBean;
 
-    //Function that generates a unique id for new user checking in database mysql if the id already exists
-    public int generateIdDataBase() {
-        int id = 1;
-        boolean idAlreadyExists;
+    @Inject
+    SessionCacheBean sessionCacheBean;
 
-        do {
-            idAlreadyExists = false;
-            UserEntity userEntity = userDao.findUserById(id);
-            if (userEntity != null) {
-                id++;
-                idAlreadyExists = true;
-            }
-        } while (idAlreadyExists);
-        return id;
+    @Inject
+    CategoryCatalogueBean categoryCatalogueBean;
+
+    @Inject
+    CollectionVersionBean collectionVersionBean;
+
+    @Inject
+    TaskEventBean taskEventBean;
+
+    @Inject
+    PasswordHashBean passwordHashBean;
+
+    @Inject
+    TaskCounterBean taskCounterBean;
+
+    //Users that own active tasks, kept together with the version they were read at; any change to tasks or users bumps the version
+    private final AtomicInteger ownersVersion = new AtomicInteger();
+    private volatile CachedOwners cachedOwners;
+
+
+    //Function that generates a unique id for new user from the block of ids reserved in memory
+    public int generateIdDataBase() {
+        return idGeneratorBean.nextId(IdSequence.USER);
     }
 
     //Add a user to the database mysql, encrypting the password, role to "dev" and generating a id
@@ -58,7 +81,7 @@ public class UserBean {
 
             UserEntity userEntity = UserMapper.convertUserDtoToUserEntity(user);
             //Encrypt the password
-            userEntity.setPassword(BCrypt.hashpw(userEntity.getPassword(), BCrypt.gensalt()));
+            userEntity.setPassword(passwordHashBean.hash(userEntity.getPassword()));
             userEntity.setId(generateIdDataBase());
             if(userEntity.getUsername().equals("admin")){
                 userEntity.setRole("po");
@@ -67,31 +90,56 @@ public class UserBean {
             }
             userEntity.setActive(true);
             userDao.persist(userEntity);
+            collectionVersionBean.bump(VersionedCollection.USERS);
 
             return true;
     }
     public boolean addUserPO(UserDto user, String role) {
         UserEntity userEntity = UserMapper.convertUserDtoToUserEntity(user);
         //Encrypt the password
-        userEntity.setPassword(BCrypt.hashpw(userEntity.getPassword(), BCrypt.gensalt()));
+        userEntity.setPassword(passwordHashBean.hash(userEntity.getPassword()));
         userEntity.setId(generateIdDataBase());
         userEntity.setRole("dev");
         userEntity.setActive(true);
         userEntity.setRole(role);
         userDao.persist(userEntity);
+        collectionVersionBean.bump(VersionedCollection.USERS);
 
         return true;
     }
 
-    //Function that validates a user in database by token
+    //Function that validates a user by token, using the session cache before the database
     public boolean isValidUserByToken(String token) {
-        UserEntity userEntity = userDao.findUserByToken(token);
-        if(userEntity != null && userEntity.getActive()){
+        SessionDto session = getSession(token);
+        if(session != null && session.isActive()){
             return true;
         }
         return false;
     }
 
+    //Function that receives a token and returns the session of its user, loading it from the database on a cache miss
+    public SessionDto getSession(String token) {
+        if (token == null) {
+            return null;
+        }
+        SessionDto session = sessionCacheBean.get(token);
+        if (session == null) {
+            //Taken before the read, so a logout or change of the user that commits meanwhile keeps this session out of the cache
+            long stamp = sessionCacheBean.stamp();
+            UserEntity userEntity = userDao.findUserByToken(token);
+            if (userEntity != null) {
+                session = convertUserEntityToSessionDto(userEntity);
+                sessionCacheBean.put(token, session, stamp);
+            }
+        }
+        return session;
+    }
+
+    private SessionDto convertUserEntityToSessionDto(UserEntity userEntity) {
+        return new SessionDto(userEntity.getId(), userEntity.getUsername(), userEntity.getRole(),
+                Boolean.TRUE.equals(userEntity.getActive()));
+    }
+
     //Function that receives a UserDto and checks in database mysql if the username and email already exists
     public boolean userExists(UserDto user) {
         UserEntity userEntity = userDao.findUserByUsername(user.getUsername());
@@ -109,11 +157,18 @@ public class UserBean {
     public String login(String username, String password) {
         UserEntity userEntity = userDao.findUserByUsername(username);
         if (userEntity != null) {
-            if (BCrypt.checkpw(password, userEntity.getPassword())) {
+            if (passwordHashBean.verify(password, userEntity.getPassword())) {
+                //The hash is made again when the cost was changed, it is saved with the new token
+                if (passwordHashBean.needsRehash(userEntity.getPassword())) {
+                    userEntity.setPassword(passwordHashBean.rehash(password));
+                }
                 String token = generateNewToken();
+                String oldToken = userEntity.getToken();
                 userEntity.setToken(token);
                 userDao.merge(userEntity);
                 userDao.flush();
+                sessionCacheBean.invalidate(oldToken);
+                sessionCacheBean.put(token, convertUserEntityToSessionDto(userEntity));
                 return token;
             }
         }
@@ -137,13 +192,15 @@ public class UserBean {
         return null;
     }
 
-    //Function that receives the token and sets it to null, logging out the user
+    //Function that receives the token and sets it to null, logging out the user. The cache is invalidated after the write
+    //is committed, so a request that reads the user meanwhile cannot cache the session again
     public void logout(String token) {
         UserEntity userEntity = userDao.findUserByToken(token);
         if (userEntity != null) {
             userEntity.setToken(null);
             userDao.merge(userEntity);
         }
+        sessionCacheBean.invalidate(token);
     }
 
     //Function that generates a new token
@@ -151,18 +208,14 @@ public class UserBean {
         return UUID.randomUUID().toString();
     }
 
-    //Function that receives a token and a task id and checks if the user has permission to access the task, to edit he must be role sm or po, or the be owner of the task
-    public boolean hasPermissionToEdit(String token, int taskId) {
-        UserEntity userEntity = userDao.findUserByToken(token);
-        if (userEntity != null) {
-            if (userEntity.getRole().equals("sm") || userEntity.getRole().equals("po")) {
+    //Function that receives the session of the user and a task id and checks if the user has permission to access the task, to edit he must be role sm or po, or the be owner of the task.
+    //The role comes from the cached session, so only devs cost a query, and that query does not depend on how many tasks they own
+    public boolean hasPermissionToEdit(SessionDto session, int taskId) {
+        if (session != null) {
+            if (session.getRole().equals("sm") || session.getRole().equals("po")) {
                 return true;
             }
-            for(int i = 0; i < taskDao.findTaskByOwnerId(userEntity.getId()).size(); i++){
-                if(taskDao.findTaskByOwnerId(userEntity.getId()).get(i).getId() == taskId){
-                    return true;
-                }
-            }
+            return taskDao.isTaskOwner(taskId, session.getId());
         }
         return false;
     }
@@ -179,6 +232,98 @@ public class UserBean {
         return userDtos;
     }
 
+    //Function that checks if there are users to list in getAllUsersDB
+    public boolean hasUsers() {
+        return userDao.hasUsers();
+    }
+
+    //Function that sends the same users as getAllUsersDB to the consumer, mapped one at a time as they are read from the database
+    public int streamAllUsers(Consumer<UserDto> consumer) {
+        return userDao.streamAllUsers(userEntity -> consumer.accept(UserMapper.convertUserEntityToUserDto(userEntity)));
+    }
+
+    //Roles a user may have, a row of an import with any other role is refused
+    private static final Set<String> ROLES = Set.of("dev", "sm", "po");
+
+    //Function that receives a chunk of the users of an export and creates, in one transaction, the ones whose username
+    //and email are not used yet. The usernames and emails are checked with one query each. A password that is already a
+    //$2a$ or $2b$ BCrypt hash with at least the configured cost is kept, so the users log in as before; any other value
+    //starting with $2 is refused, and the rest are hashed. Returns the outcome of each userdto in order
+    public List<BatchResultDto> importUsers(List<UserDto> userDtos) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (UserDto userDto : userDtos) {
+            if (userDto != null && userDto.getUsername() != null && userDto.getEmail() != null) {
+                usernames.add(userDto.getUsername());
+                emails.add(userDto.getEmail());
+            }
+        }
+        //Compared ignoring case, like MySQL does
+        Set<String> usedUsernames = new HashSet<>();
+        for (UserEntity userEntity : userDao.findUsersByUsernames(usernames)) {
+            usedUsernames.add(userEntity.getUsername().toLowerCase(Locale.ROOT));
+        }
+        Set<String> usedEmails = new HashSet<>();
+        for (String email : userDao.findExistingEmails(emails)) {
+            usedEmails.add(email.toLowerCase(Locale.ROOT));
+        }
+
+        List<BatchResultDto> results = new ArrayList<>(userDtos.size());
+        List<UserEntity> userEntities = new ArrayList<>();
+        for (int i = 0; i < userDtos.size(); i++) {
+            UserDto userDto = userDtos.get(i);
+            if (userDto == null || isBlank(userDto.getUsername()) || isBlank(userDto.getEmail()) || isBlank(userDto.getPassword())) {
+                results.add(new BatchResultDto(i, null, 400, "Verify the fields"));
+                continue;
+            }
+            if (!isBlank(userDto.getRole()) && !ROLES.contains(userDto.getRole())) {
+                results.add(new BatchResultDto(i, null, 400, "Invalid role"));
+                continue;
+            }
+            boolean hashed = userDto.getPassword().startsWith("$2");
+            if (hashed && !passwordHashBean.isAcceptedHash(userDto.getPassword())) {
+                results.add(new BatchResultDto(i, null, 400, "Password hash must be BCrypt $2a$ or $2b$ with cost "
+                        + passwordHashBean.getCost() + " or more"));
+                continue;
+            }
+            if (!usedUsernames.add(userDto.getUsername().toLowerCase(Locale.ROOT))
+                    || !usedEmails.add(userDto.getEmail().toLowerCase(Locale.ROOT))) {
+                results.add(new BatchResultDto(i, null, 409, "Invalid Username or Email"));
+                continue;
+            }
+            UserEntity userEntity = UserMapper.convertUserDtoToUserEntity(userDto);
+            if (!hashed) {
+                userEntity.setPassword(passwordHashBean.hash(userEntity.getPassword()));
+            }
+            if (isBlank(userEntity.getRole())) {
+                userEntity.setRole("dev");
+            }
+            userEntities.add(userEntity);
+            results.add(new BatchResultDto(i, null, 201, "A new user is created"));
+        }
+        if (userEntities.isEmpty()) {
+            return results;
+        }
+
+        int nextId = idGeneratorBean.nextIds(IdSequence.USER, userEntities.size());
+        for (UserEntity userEntity : userEntities) {
+            userEntity.setId(nextId++);
+        }
+        userDao.persistAll(userEntities);
+        int created = 0;
+        for (BatchResultDto result : results) {
+            if (result.getStatus() == 201) {
+                result.setId(userEntities.get(created++).getId());
+            }
+        }
+        collectionVersionBean.bump(VersionedCollection.USERS);
+        return results;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
     //Function that receives a UserUpdateDto and updates the corresponding user
     public void updateUser(UserUpdateDto userUpdateDto) {
         UserEntity userEntity = userDao.findUserByUsername(userUpdateDto.getUsername());
@@ -192,18 +337,22 @@ public class UserBean {
             userEntity.setRole(userUpdateDto.getRole());
 
             userDao.merge(userEntity);
+            sessionCacheBean.invalidate(userEntity.getToken());
+            invalidateOwners();
+            collectionVersionBean.bump(VersionedCollection.USERS);
         }
     }
 
-    //Function that receives a UserPasswordUpdateDto and updates the corresponding user
-    public boolean updatePassword(UserPasswordUpdateDto userPasswordUpdateDto, String token) {
+    //Function that receives a UserPasswordUpdateDto and the session of the user and updates the password of that user
+    public boolean updatePassword(UserPasswordUpdateDto userPasswordUpdateDto, SessionDto session) {
 
-        UserEntity userEntity = userDao.findUserByToken(token);
+        UserEntity userEntity = userDao.find(session.getId());
         if (userEntity != null) {
-            if (BCrypt.checkpw(userPasswordUpdateDto.getOldPassword(), userEntity.getPassword())) {
-                String encryptedPassword = BCrypt.hashpw(userPasswordUpdateDto.getNewPassword(), BCrypt.gensalt());
+            if (passwordHashBean.verify(userPasswordUpdateDto.getOldPassword(), userEntity.getPassword())) {
+                String encryptedPassword = passwordHashBean.hash(userPasswordUpdateDto.getNewPassword());
                 userEntity.setPassword(encryptedPassword);
                 userDao.merge(userEntity);
+                collectionVersionBean.bump(VersionedCollection.USERS);
                 return true;
             }
         }
@@ -212,31 +361,38 @@ public class UserBean {
 
     //Function that receives a token and returns the user role
     public String getUserRole(String token) {
-        UserEntity userEntity = userDao.findUserByToken(token);
-        if (userEntity != null) {
-            return userEntity.getRole();
+        SessionDto session = getSession(token);
+        if (session != null) {
+            return session.getRole();
         }
         return null;
     }
 
-    //Function that returns a list of users that own tasks
+    //Function that returns a list of users that own active tasks, with the number of active tasks of each one.
+    //The list comes from one grouped query and is cached until a task or user change invalidates it
     public List<UserDto> getUsersOwners() {
-        List<UserEntity> userEntities = userDao.findAllUsers();
+        int version = ownersVersion.get();
+        CachedOwners cached = cachedOwners;
+        if (cached != null && cached.version == version) {
+            return cached.owners;
+        }
         List<UserDto> userDtos = new ArrayList<>();
-        for (UserEntity userEntity : userEntities) {
-            List<TaskEntity> tasks = taskDao.findTaskByOwnerId(userEntity.getId());
-            boolean hasActiveTask = false;
-            for (TaskEntity task : tasks) {
-                if (task.getActive()) {
-                    hasActiveTask = true;
-                    break;
-                }
-            }
-            if (hasActiveTask) {
-                userDtos.add(UserMapper.convertUserEntityToUserDto(userEntity));
-            }
+        for (Object[] row : userDao.findActiveTaskOwners()) {
+            UserDto userDto = UserMapper.convertUserEntityToUserDto((UserEntity) row[0]);
+            userDto.setActiveTasks(((Long) row[1]).intValue());
+            userDtos.add(userDto);
         }
-        return userDtos;
+        List<UserDto> owners = Collections.unmodifiableList(userDtos);
+        //If the version changed while querying, the result may already be stale, so it is returned but not cached
+        if (ownersVersion.get() == version) {
+            cachedOwners = new CachedOwners(version, owners);
+        }
+        return owners;
+    }
+
+    //Function that discards the cached list of owners, called after tasks are created, desactivated, restored, deleted or reassigned
+    public void invalidateOwners() {
+        ownersVersion.incrementAndGet();
     }
     public boolean changeStatus(String username, boolean status){
         if(username.equals("admin")){
@@ -246,6 +402,9 @@ public class UserBean {
         if(userEntity != null){
             userEntity.setActive(status);
             userDao.merge(userEntity);
+            sessionCacheBean.invalidate(userEntity.getToken());
+            invalidateOwners();
+            collectionVersionBean.bump(VersionedCollection.USERS);
             return true;
         }
         return false;
@@ -268,6 +427,9 @@ public class UserBean {
             changeCategoryOwner(username,"deleted");
             System.out.println("categorias alteradas");
             userDao.remove(userEntity);
+            sessionCacheBean.invalidate(userEntity.getToken());
+            invalidateOwners();
+            collectionVersionBean.bump(VersionedCollection.USERS);
             System.out.println("user removido");
 
             return true;
@@ -283,6 +445,8 @@ public class UserBean {
             for (CategoryEntity category : categories) {
                 category.setOwner(newUserEntity);
                 categoryDao.merge(category);
+                categoryCatalogueBean.put(category);
+                collectionVersionBean.bump(VersionedCollection.CATEGORIES);
                 return true;
             }
         }
@@ -293,30 +457,40 @@ public class UserBean {
         UserEntity oldUserEntity = userDao.findUserByUsername(oldUsername);
         UserEntity newUserEntity = userDao.findUserByUsername(newUsername);
         if(oldUserEntity != null && newUserEntity != null){
-            List<TaskEntity> tasks = taskDao.findTaskByOwnerId(oldUserEntity.getId());
-            for(TaskEntity task : tasks){
-                System.out.println("task a ser alterada: " + task.getTitle());
-                task.setOwner(newUserEntity);
-
-                taskDao.merge(task);
-                System.out.println("task alterada: " + task.getTitle());
-            }
+            List<TaskState> chunk;
+            do {
+                chunk = taskDao.changeTasksOwner(oldUserEntity.getId(), newUserEntity, TaskBean.BULK_CHUNK_SIZE);
+                for (TaskState state : chunk) {
+                    taskCounterBean.move(state, state.withOwner(newUserEntity.getId()));
+                }
+            } while (chunk.size() == TaskBean.BULK_CHUNK_SIZE);
+            invalidateOwners();
+            collectionVersionBean.bump(VersionedCollection.TASKS);
+            taskEventBean.publishReload();
             return true;
         }
         return false;
     }
 
-    public boolean deleteTasks(String username) {
+    //Function that sets active = false on all the tasks of the user, returns the number of tasks changed or null if the user does not exist
+    public Integer deleteTasks(String username) {
         UserEntity userEntity = userDao.findUserByUsername(username);
         if (userEntity != null) {
-            List<TaskEntity> tasks = taskDao.findTaskByOwnerId(userEntity.getId());
-            for(TaskEntity task : tasks){
-                task.setActive(false);
-                taskDao.merge(task);
-            }
-            return true;
+            int changed = 0;
+            List<TaskState> chunk;
+            do {
+                chunk = taskDao.desactivateTasksByOwnerId(userEntity.getId(), TaskBean.BULK_CHUNK_SIZE);
+                for (TaskState state : chunk) {
+                    taskCounterBean.move(state, state.withActive(false));
+                }
+                changed += chunk.size();
+            } while (chunk.size() == TaskBean.BULK_CHUNK_SIZE);
+            invalidateOwners();
+            collectionVersionBean.bump(VersionedCollection.TASKS);
+            taskEventBean.publishReload();
+            return changed;
         }
-        return false;
+        return null;
     }
 
     public void createDefaultUsersIfNotExistent() {
@@ -346,4 +520,14 @@ public class UserBean {
         }
 
     }
+
+    private static final class CachedOwners {
+        private final int version;
+        private final List<UserDto> owners;
+
+        private CachedOwners(int version, List<UserDto> owners) {
+            this.version = version;
+            this.owners = owners;
+        }
+    }
 }
@@ -15,6 +15,8 @@ public abstract class AbstractDao<T extends Serializable> implements Serializabl
 
     private static final long serialVersionUID = 1L;
 
+    private static final int PERSIST_FLUSH_SIZE = 1000;
+
     private final Class<T> clazz;
 
     @PersistenceContext(unitName = "PersistenceUnit")
@@ -38,6 +40,24 @@ public abstract class AbstractDao<T extends Serializable> implements Serializabl
     }
 
 
+    //Function that inserts all the entities in one transaction. Hibernate sends the inserts in JDBC batches of
+    //hibernate.jdbc.batch_size, see persistence.xml, and the persistence context is emptied every 1000 entities so it stays small
+    public void persistAll(final List<T> entities)
+    {
+        int pending = 0;
+        for (T entity : entities) {
+            em.persist(entity);
+            if (++pending == PERSIST_FLUSH_SIZE) {
+                em.flush();
+                em.clear();
+                pending = 0;
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+
     public void merge(final T entity)
     {
         em.merge(entity);
@@ -0,0 +1,43 @@
+package aor.paj.dao;
+
+import aor.paj.entity.IdBlockEntity;
+import aor.paj.utils.IdSequence;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.LockModeType;
+
+@Stateless
+public class IdBlockDao extends AbstractDao<IdBlockEntity> {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdBlockDao() {
+        super(IdBlockEntity.class);
+    }
+
+    //Function that reserves the next block of ids of a sequence and returns the first id of the block.
+    //The row is locked for the duration of its own short transaction, and the block never starts below the highest id
+    //already in the table, so rows created before the id_block table existed (or inserted by hand) are never reused
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int allocateBlock(IdSequence sequence, int blockSize) {
+        IdBlockEntity idBlock = em.find(IdBlockEntity.class, sequence.getName(), LockModeType.PESSIMISTIC_WRITE);
+        int maxId = findMaxId(sequence);
+        if (idBlock == null) {
+            //V4__seed_id_blocks.sql creates a row for each sequence, so this only happens if one was deleted by hand
+            idBlock = new IdBlockEntity();
+            idBlock.setName(sequence.getName());
+            idBlock.setNextId(maxId + 1);
+            em.persist(idBlock);
+        }
+        int firstId = Math.max(idBlock.getNextId(), maxId + 1);
+        idBlock.setNextId(firstId + blockSize);
+        return firstId;
+    }
+
+    private int findMaxId(IdSequence sequence) {
+        Integer maxId = em.createQuery("SELECT MAX(e.id) FROM " + sequence.getEntityName() + " e", Integer.class)
+                .getSingleResult();
+        return maxId == null ? 0 : maxId;
+    }
+}
@@ -1,19 +1,45 @@
 package aor.paj.dao;
 
+import aor.paj.dto.TaskDto;
+import aor.paj.dto.TaskFilterDto;
+import aor.paj.dto.TaskMoveDto;
 import aor.paj.entity.CategoryEntity;
 import aor.paj.entity.TaskEntity;
 import aor.paj.entity.UserEntity;
+import aor.paj.utils.TaskCursor;
+import aor.paj.utils.TaskState;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.NoResultException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Stateless
 public class TaskDao extends AbstractDao<TaskEntity>{
 
     private static final long serialVersionUID = 1L;
 
+    //Rows read from the database per round trip by the streaming functions
+    public static final int FETCH_SIZE = 500;
+
+    //Values bound to each IN list by the batch functions
+    static final int BATCH_CHUNK_SIZE = 1000;
+
+    //Task.updateStatus in SQL, so the moves of PUT /tasks/status can be sent together in one JDBC batch
+    static final String UPDATE_STATUS_SQL = "UPDATE task SET status = ?, version = version + 1 WHERE id = ? AND version = ?";
+
     public TaskDao() {
         super(TaskEntity.class);
     }
@@ -32,6 +58,32 @@ public class TaskDao extends AbstractDao<TaskEntity>{
         }
     }
 
+    //Function that returns the task as a read-only dto, or null if it does not exist
+    public TaskDto findTaskDtoById(int id) {
+        try {
+            return em.createNamedQuery("Task.findTaskDtoById", TaskDto.class).setParameter("id", id).getSingleResult();
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
+    //Function that returns the version, category, owner, status and active of the task, or null if it does not exist
+    public TaskState findState(int id) {
+        try {
+            return em.createNamedQuery("Task.findState", TaskState.class).setParameter("id", id).getSingleResult();
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
+    //Function that saves the changes of a task read in another transaction and returns the saved copy, with its new version.
+    //It fails with OptimisticLockException when the task was changed since it was read
+    public TaskEntity update(TaskEntity taskEntity) {
+        TaskEntity merged = em.merge(taskEntity);
+        em.flush();
+        return merged;
+    }
+
     public TaskEntity findTaskByTitle(String title) {
         try {
             return (TaskEntity) em.createNamedQuery("Task.findTaskByTitle").setParameter("title", title)
@@ -42,63 +94,284 @@ public class TaskDao extends AbstractDao<TaskEntity>{
         }
     }
 
-    public List<TaskEntity> findTaskByOwnerId(int id) {
+    //Function that checks if the task belongs to the owner with a single lookup by primary key, without loading any task
+    public boolean isTaskOwner(int taskId, int ownerId) {
+        return em.createNamedQuery("Task.isTaskOwner", Long.class).setParameter("id", taskId)
+                .setParameter("ownerId", ownerId).getSingleResult() > 0;
+    }
+
+    //The list functions below return read-only dtos built by the query, see TaskEntity.SELECT_DTO
+
+    public List<TaskDto> findTaskByOwnerId(int id) {
         try {
-            return em.createNamedQuery("Task.findTaskByOwnerId").setParameter("id", id).getResultList();
+            return em.createNamedQuery("Task.findTaskByOwnerId", TaskDto.class).setParameter("id", id).getResultList();
         } catch (NoResultException e) {
             return null;
         }
     }
 
     //Function that returns all tasks that have active == true
-    public List<TaskEntity> getActiveTasks() {
+    public List<TaskDto> getActiveTasks() {
         try {
-            return em.createNamedQuery("Task.getActiveTasks").getResultList();
+            return em.createNamedQuery("Task.getActiveTasks", TaskDto.class).getResultList();
         } catch (NoResultException e) {
             return null;
         }
     }
-    public List<TaskEntity> getInactiveTasks() {
+    public List<TaskDto> getInactiveTasks() {
         try {
-            return em.createNamedQuery("Task.getInactiveTasks").getResultList();
+            return em.createNamedQuery("Task.getInactiveTasks", TaskDto.class).getResultList();
         } catch (NoResultException e) {
             return null;
         }
     }
-    public List<TaskEntity> getActiveStatusTasks(int status) {
+    public List<TaskDto> getActiveStatusTasks(int status) {
         try {
-            return em.createNamedQuery("Task.getActiveStatusTasks").setParameter("status", status).getResultList();
+            return em.createNamedQuery("Task.getActiveStatusTasks", TaskDto.class).setParameter("status", status).getResultList();
         } catch (NoResultException e) {
             return null;
         }
     }
 
-    public List<TaskEntity> findTasksByCategory(CategoryEntity category){
+    public List<TaskDto> findTasksByCategory(CategoryEntity category){
         try {
-            return em.createNamedQuery("Task.findTaskByCategory").setParameter("category", category).getResultList();
+            return em.createNamedQuery("Task.findTaskByCategory", TaskDto.class).setParameter("category", category).getResultList();
         } catch (NoResultException e) {
             return null;
         }
     }
 
-    public List<TaskEntity> getTasksByCategoryAndOwner(UserEntity owner, CategoryEntity category){
+    public List<TaskDto> getTasksByCategoryAndOwner(UserEntity owner, CategoryEntity category){
         try {
-            return em.createNamedQuery("Task.findTaskByCategoryAndOwner").setParameter("category", category).setParameter("owner", owner).getResultList();
+            return em.createNamedQuery("Task.findTaskByCategoryAndOwner", TaskDto.class).setParameter("category", category).setParameter("owner", owner).getResultList();
         } catch (NoResultException e) {
             return null;
         }
     }
-    public List<TaskEntity> getActiveTasksByCategoryAndOwner(UserEntity owner, CategoryEntity category){
-        try {
-            return em.createNamedQuery("Task.findActiveTaskByCategoryAndOwner").setParameter("category", category).setParameter("owner", owner).getResultList();
-        } catch (NoResultException e) {
-            return null;
+
+    //Function that returns all the tasks of database mysql
+    public List<TaskDto> getAllTasks() {
+        return em.createNamedQuery("Task.getAllTasks", TaskDto.class).getResultList();
+    }
+
+    //Function that returns the tasks matching every filter present, in board order, starting after the cursor.
+    //The cursor comparison mirrors the ORDER BY so a page never repeats or skips a task, even with equal priorities and dates
+    public List<TaskDto> findTasks(TaskFilterDto filter, TaskCursor after, Integer limit) {
+        TypedQuery<TaskDto> query = createTasksQuery(filter, after);
+        if (limit != null) {
+            query.setMaxResults(limit);
         }
+        return query.getResultList();
     }
 
-    //Function that returns all the tasks of database mysql
-    public List<TaskEntity> getAllTasks() {
-        return em.createNamedQuery("Task.getAllTasks").getResultList();
+    //Function that sends each task matching the filters to the consumer as it is read from the database, in the same order
+    //as findTasks, and returns how many were sent. The rows are fetched FETCH_SIZE at a time and never kept in a list,
+    //so the consumer must do its work, such as writing the task to the response, before this transaction ends
+    public int streamTasks(TaskFilterDto filter, TaskCursor after, Consumer<TaskDto> consumer) {
+        TypedQuery<TaskDto> query = createTasksQuery(filter, after).setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE);
+        int count = 0;
+        try (Stream<TaskDto> tasks = query.getResultStream()) {
+            Iterator<TaskDto> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //Function that sends every task, active or not, to the consumer in id order as it is read, for GET /export/tasks.
+    //Like streamTasks the rows are fetched FETCH_SIZE at a time and never kept in a list
+    public int streamAllTasks(Consumer<TaskDto> consumer) {
+        int count = 0;
+        try (Stream<TaskDto> tasks = em.createNamedQuery("Task.exportTasks", TaskDto.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE).getResultStream()) {
+            Iterator<TaskDto> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private TypedQuery<TaskDto> createTasksQuery(TaskFilterDto filter, TaskCursor after) {
+        StringBuilder jpql = new StringBuilder(TaskEntity.SELECT_DTO).append(" WHERE t.active = :active");
+        if (filter.getCategory() != null) {
+            jpql.append(" AND t.category.title = :category");
+        }
+        if (filter.getOwner() != null) {
+            jpql.append(" AND t.owner.username = :owner");
+        }
+        if (filter.getStatus() != null) {
+            jpql.append(" AND t.status = :status");
+        }
+        if (after != null) {
+            jpql.append(" AND (t.priority < :priority OR (t.priority = :priority AND (t.initialDate > :initialDate")
+                    .append(" OR (t.initialDate = :initialDate AND (t.finalDateSort > :finalDate")
+                    .append(" OR (t.finalDateSort = :finalDate AND t.id > :id))))))");
+        }
+        jpql.append(TaskEntity.BOARD_ORDER).append(", t.id");
+
+        TypedQuery<TaskDto> query = em.createQuery(jpql.toString(), TaskDto.class)
+                .setParameter("active", filter.getActive() == null || filter.getActive());
+        if (filter.getCategory() != null) {
+            query.setParameter("category", filter.getCategory());
+        }
+        if (filter.getOwner() != null) {
+            query.setParameter("owner", filter.getOwner());
+        }
+        if (filter.getStatus() != null) {
+            query.setParameter("status", filter.getStatus());
+        }
+        if (after != null) {
+            query.setParameter("priority", after.getPriority())
+                    .setParameter("initialDate", after.getInitialDate())
+                    .setParameter("finalDate", after.getFinalDate())
+                    .setParameter("id", after.getId());
+        }
+        return query;
+    }
+
+    //Bulk operations. Each one runs as UPDATE/DELETE statements, so pending changes are flushed before them
+    //and the persistence context is cleared after them, otherwise managed tasks would keep their old values
+
+    //Function that restores up to chunkSize inactive tasks and returns their state before they were restored
+    public List<TaskState> restoreInactiveTasks(int chunkSize) {
+        List<TaskState> states = em.createNamedQuery("Task.lockInactiveStates", TaskState.class).setMaxResults(chunkSize).getResultList();
+        if (!states.isEmpty()) {
+            updateByIds("Task.restoreTasksByIds", states, null);
+        }
+        return states;
+    }
+
+    //Function that deletes up to chunkSize inactive tasks and returns their state before they were deleted
+    public List<TaskState> deleteInactiveTasks(int chunkSize) {
+        List<TaskState> states = em.createNamedQuery("Task.lockInactiveStates", TaskState.class).setMaxResults(chunkSize).getResultList();
+        if (!states.isEmpty()) {
+            updateByIds("Task.deleteTasksByIds", states, null);
+        }
+        return states;
+    }
+
+    //Function that moves the task to the status in one UPDATE and returns if it was changed. With a version it only applies
+    //if the task still has it, and with an owner only if the task is of that owner; without them any version or owner is
+    //moved. Nothing is read before, a stale version, another owner or a missing task just change no row
+    public boolean updateStatus(int id, int status, Integer version, Integer ownerId) {
+        String name = (ownerId != null ? "Task.updateOwnStatus" : "Task.updateStatus") + (version != null ? "" : "AnyVersion");
+        Query query = em.createNamedQuery(name).setParameter("status", status).setParameter("id", id);
+        if (version != null) {
+            query.setParameter("version", version);
+        }
+        if (ownerId != null) {
+            query.setParameter("ownerId", ownerId);
+        }
+        em.flush();
+        int updated = query.executeUpdate();
+        em.clear();
+        return updated == 1;
+    }
+
+    //Function that applies every move, each one only if the task still has the expected version, in one transaction and
+    //one JDBC batch for each 1000 moves. Returns the rows changed by each move, 0 when the version was stale or the task
+    //does not exist. A driver that does not count the rows of a batch, like MySQL with rewriteBatchedStatements, gives
+    //Statement.SUCCESS_NO_INFO, so the moves that applied are not known: the whole batch is rolled back with an IllegalStateException
+    public int[] updateStatuses(List<TaskMoveDto> moves) {
+        em.flush();
+        int[] updated = em.unwrap(Session.class).doReturningWork(connection -> {
+            int[] counts = new int[moves.size()];
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_STATUS_SQL)) {
+                for (int from = 0; from < moves.size(); from += BATCH_CHUNK_SIZE) {
+                    int to = Math.min(from + BATCH_CHUNK_SIZE, moves.size());
+                    for (TaskMoveDto move : moves.subList(from, to)) {
+                        statement.setInt(1, move.getStatus());
+                        statement.setInt(2, move.getId());
+                        statement.setInt(3, move.getExpectedVersion());
+                        statement.addBatch();
+                    }
+                    int[] chunk = statement.executeBatch();
+                    for (int count : chunk) {
+                        if (count == Statement.SUCCESS_NO_INFO) {
+                            throw new IllegalStateException("The driver did not report the rows changed by each move of the batch");
+                        }
+                    }
+                    System.arraycopy(chunk, 0, counts, from, to - from);
+                }
+            }
+            return counts;
+        });
+        em.clear();
+        return updated;
+    }
+
+    //Function that sets active = false on up to chunkSize active tasks of the owner and returns their state before the change
+    public List<TaskState> desactivateTasksByOwnerId(int ownerId, int chunkSize) {
+        List<TaskState> states = em.createNamedQuery("Task.lockActiveStatesByOwner", TaskState.class).setParameter("ownerId", ownerId)
+                .setMaxResults(chunkSize).getResultList();
+        if (!states.isEmpty()) {
+            updateByIds("Task.desactivateTasksByIds", states, null);
+        }
+        return states;
+    }
+
+    //Function that moves up to chunkSize tasks of the old owner, active or not, to the new owner and returns their state before the change
+    public List<TaskState> changeTasksOwner(int oldOwnerId, UserEntity newOwner, int chunkSize) {
+        List<TaskState> states = em.createNamedQuery("Task.lockStatesByOwner", TaskState.class).setParameter("ownerId", oldOwnerId)
+                .setMaxResults(chunkSize).getResultList();
+        if (!states.isEmpty()) {
+            updateByIds("Task.changeTasksOwnerByIds", states, newOwner);
+        }
+        return states;
+    }
+
+    //Function that runs the bulk statement on the ids of the tasks, with the new owner when the statement sets one
+    private void updateByIds(String namedQuery, List<TaskState> states, UserEntity owner) {
+        List<Integer> ids = new ArrayList<>(states.size());
+        for (TaskState state : states) {
+            ids.add(state.getId());
+        }
+        em.flush();
+        Query query = em.createNamedQuery(namedQuery).setParameter("ids", ids);
+        if (owner != null) {
+            query.setParameter("owner", owner);
+        }
+        query.executeUpdate();
+        em.clear();
+    }
+
+    //Function that receives task ids and returns the state of each one that exists, in one query for each 1000 ids
+    public Map<Integer, TaskState> findStates(Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(ids);
+        Map<Integer, TaskState> states = new HashMap<>();
+        for (int from = 0; from < idList.size(); from += BATCH_CHUNK_SIZE) {
+            List<Integer> chunk = idList.subList(from, Math.min(from + BATCH_CHUNK_SIZE, idList.size()));
+            for (TaskState state : em.createNamedQuery("Task.findStates", TaskState.class).setParameter("ids", chunk).getResultList()) {
+                states.put(state.getId(), state);
+            }
+        }
+        return states;
+    }
+
+    //Function that returns, for each category, owner and active, the number of tasks, read from the index
+    //idx_task_category_owner_status without touching the rows
+    public List<Object[]> countTasks() {
+        return em.createNamedQuery("Task.countTasks", Object[].class).getResultList();
+    }
+
+    //Function that returns, for each status, the number of active tasks, read from the index idx_task_status_board
+    //without touching the rows
+    public List<Object[]> countActiveByStatus() {
+        return em.createNamedQuery("Task.countActiveByStatus", Object[].class).getResultList();
+    }
+
+    //Function that receives titles and returns the ones already used by a task, in one query for each 1000 titles
+    public List<String> findExistingTitles(List<String> titles) {
+        List<String> existing = new ArrayList<>();
+        for (int from = 0; from < titles.size(); from += BATCH_CHUNK_SIZE) {
+            List<String> chunk = titles.subList(from, Math.min(from + BATCH_CHUNK_SIZE, titles.size()));
+            existing.addAll(em.createNamedQuery("Task.findExistingTitles", String.class).setParameter("titles", chunk).getResultList());
+        }
+        return existing;
     }
 
     public List<TaskEntity> getTasksByStatusAndOwnerAndCategory(Integer status, UserEntity owner, CategoryEntity category){
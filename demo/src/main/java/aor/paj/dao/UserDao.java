@@ -5,8 +5,16 @@ import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Stateless
 public class UserDao extends AbstractDao<UserEntity> {
@@ -57,6 +65,61 @@ public class UserDao extends AbstractDao<UserEntity> {
         }
     }
 
+    //Function that returns each user that owns at least one active task together with the number of active tasks, in one grouped query
+    public List<Object[]> findActiveTaskOwners() {
+        return em.createNamedQuery("User.findActiveTaskOwners", Object[].class).getResultList();
+    }
+
+    //Function that checks if there is any user to list, without loading them
+    public boolean hasUsers() {
+        return !em.createNamedQuery("User.findAllUsers", UserEntity.class).setMaxResults(1).getResultList().isEmpty();
+    }
+
+    //Function that sends each user of findAllUsers to the consumer as it is read from the database and returns how many were sent.
+    //Each user is detached after the consumer is done with it, so the persistence context does not grow with the result
+    public int streamAllUsers(Consumer<UserEntity> consumer) {
+        int count = 0;
+        try (Stream<UserEntity> users = em.createNamedQuery("User.findAllUsers", UserEntity.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, TaskDao.FETCH_SIZE).getResultStream()) {
+            Iterator<UserEntity> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                UserEntity userEntity = iterator.next();
+                consumer.accept(userEntity);
+                em.detach(userEntity);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //Function that returns the users with any of the usernames, in one query, for the imports
+    public List<UserEntity> findUsersByUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createNamedQuery("User.findUsersByUsernames", UserEntity.class).setParameter("usernames", usernames).getResultList();
+    }
+
+    //Function that receives emails and returns the ones already used by a user, in one query
+    public List<String> findExistingEmails(Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createNamedQuery("User.findExistingEmails", String.class).setParameter("emails", emails).getResultList();
+    }
+
+    //Function that receives user ids and returns the username of each one that exists, in one query
+    public Map<Integer, String> findUsernamesByIds(Collection<Integer> ids) {
+        Map<Integer, String> usernames = new HashMap<>();
+        if (ids.isEmpty()) {
+            return usernames;
+        }
+        for (Object[] row : em.createNamedQuery("User.findUsernamesByIds", Object[].class).setParameter("ids", ids).getResultList()) {
+            usernames.put((Integer) row[0], (String) row[1]);
+        }
+        return usernames;
+    }
+
     public List<UserEntity> findAllUsers() {
         try{
             return em.createNamedQuery("User.findAllUsers").getResultList();
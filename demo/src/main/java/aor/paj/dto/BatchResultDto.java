@@ -0,0 +1,54 @@
+package aor.paj.dto;
+
+//Outcome of one item of a batch request, in the order the items were sent
+public class BatchResultDto {
+    private int index;
+    private Integer id;
+    private int status;
+    private String message;
+
+    public BatchResultDto() {
+    }
+
+    public BatchResultDto(int index, Integer id, int status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+
+    //Position of the item in the request, starting at 0
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    //Id of the task, null when the item was not accepted
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    //HTTP status the item would have had on its own request, like 201 for created or 409 for a title that exists
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -9,6 +9,7 @@ public class CategoryDto {
     private String title;
     private String description;
     private String owner;
+    private int taskCount;
 
     @XmlElement
     public int getId() {
@@ -45,4 +46,14 @@ public class CategoryDto {
     public void setOwner(String owner) {
         this.owner = owner;
     }
+
+    //Number of active tasks of the category
+    @XmlElement
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
 }
@@ -0,0 +1,138 @@
+package aor.paj.dto;
+
+public class ExecutorStatsDto {
+    private String name;
+    private int threads;
+    private int active;
+    private int queued;
+    private int queueCapacity;
+    private long timeoutMillis;
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long rejected;
+    private long timedOut;
+    private boolean virtual;
+
+    public ExecutorStatsDto() {
+    }
+
+    public ExecutorStatsDto(String name, int threads, int active, int queued, int queueCapacity, long timeoutMillis,
+                            long submitted, long completed, long failed, long rejected, long timedOut, boolean virtual) {
+        this.name = name;
+        this.threads = threads;
+        this.active = active;
+        this.queued = queued;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.timedOut = timedOut;
+        this.virtual = virtual;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    //Tasks running right now
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    //Tasks waiting for a thread
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(long submitted) {
+        this.submitted = submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+        this.failed = failed;
+    }
+
+    //Tasks that ended with an exception, answered by the server like the synchronous services
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    //Tasks refused because the queue was full, answered with 503
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    //Tasks that waited in the queue longer than the timeout, answered with 503 without running
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(long timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    //True when the pool runs on virtual threads
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void setVirtual(boolean virtual) {
+        this.virtual = virtual;
+    }
+}
@@ -0,0 +1,102 @@
+package aor.paj.dto;
+
+import java.util.List;
+
+public class HibernateStatsDto {
+    private long secondLevelCacheHits;
+    private long secondLevelCacheMisses;
+    private long secondLevelCachePuts;
+    private long queryCacheHits;
+    private long queryCacheMisses;
+    private long queryCachePuts;
+    private long entityLoads;
+    private long queryExecutions;
+    private List<RegionStatsDto> regions;
+
+    public HibernateStatsDto() {
+    }
+
+    public HibernateStatsDto(long secondLevelCacheHits, long secondLevelCacheMisses, long secondLevelCachePuts, long queryCacheHits, long queryCacheMisses, long queryCachePuts, long entityLoads, long queryExecutions, List<RegionStatsDto> regions) {
+        this.secondLevelCacheHits = secondLevelCacheHits;
+        this.secondLevelCacheMisses = secondLevelCacheMisses;
+        this.secondLevelCachePuts = secondLevelCachePuts;
+        this.queryCacheHits = queryCacheHits;
+        this.queryCacheMisses = queryCacheMisses;
+        this.queryCachePuts = queryCachePuts;
+        this.entityLoads = entityLoads;
+        this.queryExecutions = queryExecutions;
+        this.regions = regions;
+    }
+
+    public long getSecondLevelCacheHits() {
+        return secondLevelCacheHits;
+    }
+
+    public void setSecondLevelCacheHits(long secondLevelCacheHits) {
+        this.secondLevelCacheHits = secondLevelCacheHits;
+    }
+
+    public long getSecondLevelCacheMisses() {
+        return secondLevelCacheMisses;
+    }
+
+    public void setSecondLevelCacheMisses(long secondLevelCacheMisses) {
+        this.secondLevelCacheMisses = secondLevelCacheMisses;
+    }
+
+    public long getSecondLevelCachePuts() {
+        return secondLevelCachePuts;
+    }
+
+    public void setSecondLevelCachePuts(long secondLevelCachePuts) {
+        this.secondLevelCachePuts = secondLevelCachePuts;
+    }
+
+    public long getQueryCacheHits() {
+        return queryCacheHits;
+    }
+
+    public void setQueryCacheHits(long queryCacheHits) {
+        this.queryCacheHits = queryCacheHits;
+    }
+
+    public long getQueryCacheMisses() {
+        return queryCacheMisses;
+    }
+
+    public void setQueryCacheMisses(long queryCacheMisses) {
+        this.queryCacheMisses = queryCacheMisses;
+    }
+
+    public long getQueryCachePuts() {
+        return queryCachePuts;
+    }
+
+    public void setQueryCachePuts(long queryCachePuts) {
+        this.queryCachePuts = queryCachePuts;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public void setEntityLoads(long entityLoads) {
+        this.entityLoads = entityLoads;
+    }
+
+    public long getQueryExecutions() {
+        return queryExecutions;
+    }
+
+    public void setQueryExecutions(long queryExecutions) {
+        this.queryExecutions = queryExecutions;
+    }
+
+    public List<RegionStatsDto> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(List<RegionStatsDto> regions) {
+        this.regions = regions;
+    }
+}
@@ -0,0 +1,59 @@
+package aor.paj.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResultDto {
+    private long read;
+    private long imported;
+    private long skipped;
+    private int chunks;
+    private List<String> errors = new ArrayList<>();
+
+    public ImportResultDto() {
+    }
+
+    //Rows found in the file
+    public long getRead() {
+        return read;
+    }
+
+    public void setRead(long read) {
+        this.read = read;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    //Rows that could not be read or were refused, like a title that exists
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    //Transactions committed, one for each chunk of rows
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    //Why the first skipped rows were skipped, with their line in the file
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
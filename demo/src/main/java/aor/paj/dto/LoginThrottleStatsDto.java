@@ -0,0 +1,93 @@
+package aor.paj.dto;
+
+public class LoginThrottleStatsDto {
+    private int maxPerUser;
+    private int maxPerClient;
+    private long windowSeconds;
+    private long allowed;
+    private long rejectedByUser;
+    private long rejectedByClient;
+    private int trackedUsers;
+    private int trackedClients;
+
+    public LoginThrottleStatsDto() {
+    }
+
+    public LoginThrottleStatsDto(int maxPerUser, int maxPerClient, long windowSeconds, long allowed, long rejectedByUser,
+                                 long rejectedByClient, int trackedUsers, int trackedClients) {
+        this.maxPerUser = maxPerUser;
+        this.maxPerClient = maxPerClient;
+        this.windowSeconds = windowSeconds;
+        this.allowed = allowed;
+        this.rejectedByUser = rejectedByUser;
+        this.rejectedByClient = rejectedByClient;
+        this.trackedUsers = trackedUsers;
+        this.trackedClients = trackedClients;
+    }
+
+    public int getMaxPerUser() {
+        return maxPerUser;
+    }
+
+    public void setMaxPerUser(int maxPerUser) {
+        this.maxPerUser = maxPerUser;
+    }
+
+    public int getMaxPerClient() {
+        return maxPerClient;
+    }
+
+    public void setMaxPerClient(int maxPerClient) {
+        this.maxPerClient = maxPerClient;
+    }
+
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(long windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    public long getAllowed() {
+        return allowed;
+    }
+
+    public void setAllowed(long allowed) {
+        this.allowed = allowed;
+    }
+
+    //Attempts answered with 429 because the username used all the attempts of the window
+    public long getRejectedByUser() {
+        return rejectedByUser;
+    }
+
+    public void setRejectedByUser(long rejectedByUser) {
+        this.rejectedByUser = rejectedByUser;
+    }
+
+    //Attempts answered with 429 because the client address used all the attempts of the window
+    public long getRejectedByClient() {
+        return rejectedByClient;
+    }
+
+    public void setRejectedByClient(long rejectedByClient) {
+        this.rejectedByClient = rejectedByClient;
+    }
+
+    public int getTrackedUsers() {
+        return trackedUsers;
+    }
+
+    public void setTrackedUsers(int trackedUsers) {
+        this.trackedUsers = trackedUsers;
+    }
+
+    public int getTrackedClients() {
+        return trackedClients;
+    }
+
+    public void setTrackedClients(int trackedClients) {
+        this.trackedClients = trackedClients;
+    }
+}
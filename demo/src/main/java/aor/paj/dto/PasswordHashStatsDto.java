@@ -0,0 +1,114 @@
+package aor.paj.dto;
+
+public class PasswordHashStatsDto {
+    private int cost;
+    private long hashes;
+    private long verifications;
+    private long failedVerifications;
+    private long rehashes;
+    private double averageMillis;
+    private double maxMillis;
+    private int active;
+    private int queued;
+    private long rejected;
+
+    public PasswordHashStatsDto() {
+    }
+
+    public PasswordHashStatsDto(int cost, long hashes, long verifications, long failedVerifications, long rehashes,
+                                double averageMillis, double maxMillis) {
+        this.cost = cost;
+        this.hashes = hashes;
+        this.verifications = verifications;
+        this.failedVerifications = failedVerifications;
+        this.rehashes = rehashes;
+        this.averageMillis = averageMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public void setCost(int cost) {
+        this.cost = cost;
+    }
+
+    public long getHashes() {
+        return hashes;
+    }
+
+    public void setHashes(long hashes) {
+        this.hashes = hashes;
+    }
+
+    public long getVerifications() {
+        return verifications;
+    }
+
+    public void setVerifications(long verifications) {
+        this.verifications = verifications;
+    }
+
+    //Wrong passwords, a fast growing number is a sign of someone guessing
+    public long getFailedVerifications() {
+        return failedVerifications;
+    }
+
+    public void setFailedVerifications(long failedVerifications) {
+        this.failedVerifications = failedVerifications;
+    }
+
+    //Hashes made again at login because the cost changed
+    public long getRehashes() {
+        return rehashes;
+    }
+
+    public void setRehashes(long rehashes) {
+        this.rehashes = rehashes;
+    }
+
+    //Average time of one hash or check, in milliseconds
+    public double getAverageMillis() {
+        return averageMillis;
+    }
+
+    public void setAverageMillis(double averageMillis) {
+        this.averageMillis = averageMillis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public void setMaxMillis(double maxMillis) {
+        this.maxMillis = maxMillis;
+    }
+
+    //Requests being hashed on the hashing pool right now
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    //Requests waiting for a thread of the hashing pool
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    //Requests answered with 503 because the queue of the hashing pool was full
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+}
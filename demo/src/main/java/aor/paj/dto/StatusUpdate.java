@@ -1,6 +1,8 @@
 package aor.paj.dto;
 public class StatusUpdate {
     private int status;
+    //Version of the task the client read, see TaskDto.getVersion. Without it the move applies to the current version
+    private Integer version;
 
     public int getStatus() {
         return status;
@@ -9,4 +11,12 @@ public class StatusUpdate {
     public void setStatus(int status) {
         this.status = status;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
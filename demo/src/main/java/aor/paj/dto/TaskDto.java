@@ -20,6 +20,7 @@ public class TaskDto {
     private String category;
     private String owner;
     private boolean active;
+    private int version;
 
     public TaskDto() {}
 
@@ -31,6 +32,22 @@ public class TaskDto {
         this.priority = priority;
     }
 
+    //Constructor used by the JPQL projections of TaskEntity.SELECT_DTO
+    public TaskDto(int id, String title, String description, LocalDate initialDate, LocalDate finalDate, Integer status,
+                   Integer priority, String category, String owner, Boolean active, int version) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.initialDate = initialDate;
+        this.finalDate = finalDate;
+        this.status = status;
+        this.priority = priority;
+        this.category = category;
+        this.owner = owner;
+        this.active = active != null && active;
+        this.version = version;
+    }
+
     @XmlElement
     public int getId() {
         return id;
@@ -165,6 +182,16 @@ public class TaskDto {
         this.active = active;
     }
 
+    //Version the task had when it was read, sent back in PUT /tasks/{id}/status so a move based on an old read is refused
+    @XmlElement
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "TaskDto{" +
@@ -178,6 +205,7 @@ public class TaskDto {
                 ", category='" + category + '\'' +
                 ", owner='" + owner + '\'' +
                 ", active=" + active +
+                ", version=" + version +
                 '}';
     }
 }
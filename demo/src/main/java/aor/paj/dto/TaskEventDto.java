@@ -0,0 +1,76 @@
+package aor.paj.dto;
+
+//Change of one task sent to the board through GET /tasks/events. Only the fields the type needs are set, the rest
+//are null and left out of the JSON
+public class TaskEventDto {
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String STATUS = "status";
+    public static final String DESACTIVATED = "desactivated";
+    public static final String RESTORED = "restored";
+    public static final String DELETED = "deleted";
+    //Many tasks changed at once, the board must be loaded again with GET /tasks
+    public static final String RELOAD = "reload";
+
+    private String type;
+    private Integer taskId;
+    private Integer status;
+    private TaskDto task;
+    //New version of the task after a status change, so the board can send it with its next move
+    private Integer version;
+
+    public TaskEventDto() {
+    }
+
+    public TaskEventDto(String type, Integer taskId, Integer status, TaskDto task) {
+        this.type = type;
+        this.taskId = taskId;
+        this.status = status;
+        this.task = task;
+    }
+
+    public TaskEventDto(String type, Integer taskId, Integer status, TaskDto task, Integer version) {
+        this(type, taskId, status, task);
+        this.version = version;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Integer getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Integer taskId) {
+        this.taskId = taskId;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public TaskDto getTask() {
+        return task;
+    }
+
+    public void setTask(TaskDto task) {
+        this.task = task;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,51 @@
+package aor.paj.dto;
+
+//Filters of GET /tasks, any of them can be null and all the ones present are combined in a single query
+public class TaskFilterDto {
+    private String category;
+    private String owner;
+    private Integer status;
+    private Boolean active;
+
+    public TaskFilterDto() {
+    }
+
+    public TaskFilterDto(String category, String owner, Integer status, Boolean active) {
+        this.category = category;
+        this.owner = owner;
+        this.status = status;
+        this.active = active;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+}
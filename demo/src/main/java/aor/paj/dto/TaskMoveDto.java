@@ -0,0 +1,42 @@
+package aor.paj.dto;
+
+//One card of PUT /tasks/status, the task to move, the status it goes to and the version of the task the client read
+public class TaskMoveDto {
+    private int id;
+    private int status;
+    private Integer expectedVersion;
+
+    public TaskMoveDto() {
+    }
+
+    public TaskMoveDto(int id, int status, Integer expectedVersion) {
+        this.id = id;
+        this.status = status;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    //Version of the task the move is based on, see TaskDto.getVersion. Without it the move applies to the current version
+    public Integer getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public void setExpectedVersion(Integer expectedVersion) {
+        this.expectedVersion = expectedVersion;
+    }
+}
@@ -0,0 +1,33 @@
+package aor.paj.dto;
+
+import java.util.List;
+
+public class TaskPageDto {
+    private List<TaskDto> tasks;
+    private String nextCursor;
+
+    public TaskPageDto() {
+    }
+
+    public TaskPageDto(List<TaskDto> tasks, String nextCursor) {
+        this.tasks = tasks;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TaskDto> getTasks() {
+        return tasks;
+    }
+
+    public void setTasks(List<TaskDto> tasks) {
+        this.tasks = tasks;
+    }
+
+    //Cursor of the last task of the page, null when there are no more tasks after it
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,63 @@
+package aor.paj.dto;
+
+import java.util.Map;
+
+//Counts of GET /tasks/stats. The maps count only active tasks, by status, by category title and by owner username
+public class TaskStatsDto {
+    private long active;
+    private long inactive;
+    private Map<Integer, Long> statuses;
+    private Map<String, Long> categories;
+    private Map<String, Long> owners;
+
+    public TaskStatsDto() {
+    }
+
+    public TaskStatsDto(long active, long inactive, Map<Integer, Long> statuses, Map<String, Long> categories, Map<String, Long> owners) {
+        this.active = active;
+        this.inactive = inactive;
+        this.statuses = statuses;
+        this.categories = categories;
+        this.owners = owners;
+    }
+
+    public long getActive() {
+        return active;
+    }
+
+    public void setActive(long active) {
+        this.active = active;
+    }
+
+    public long getInactive() {
+        return inactive;
+    }
+
+    public void setInactive(long inactive) {
+        this.inactive = inactive;
+    }
+
+    public Map<Integer, Long> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(Map<Integer, Long> statuses) {
+        this.statuses = statuses;
+    }
+
+    public Map<String, Long> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(Map<String, Long> categories) {
+        this.categories = categories;
+    }
+
+    public Map<String, Long> getOwners() {
+        return owners;
+    }
+
+    public void setOwners(Map<String, Long> owners) {
+        this.owners = owners;
+    }
+}
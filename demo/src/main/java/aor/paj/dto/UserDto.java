@@ -17,6 +17,7 @@ public class UserDto {
     private String photoURL;
     private String role;
     private boolean active;
+    private Integer activeTasks;
 
 
     private ArrayList<TaskDto> taskDtos;
@@ -85,6 +86,11 @@ public class UserDto {
         return active;
     }
 
+    @XmlElement
+    public Integer getActiveTasks() {
+        return activeTasks;
+    }
+
     @XmlElementWrapper
     @XmlElement(name = "task")
     public ArrayList<TaskDto> getTasks() {
@@ -132,6 +138,10 @@ public class UserDto {
         this.active = active;
     }
 
+    public void setActiveTasks(Integer activeTasks) {
+        this.activeTasks = activeTasks;
+    }
+
     public void setTasks(ArrayList<TaskDto> taskDtos) {
         this.taskDtos = taskDtos;
     }
@@ -1,16 +1,27 @@
 package aor.paj.entity;
 
+import aor.paj.utils.CacheRegions;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.jpa.HibernateHints;
 
 import java.io.Serializable;
 
 @Entity
 @Table(name="category")
-@NamedQuery(name = "Category.findCategoryById", query = "SELECT c FROM CategoryEntity c WHERE c.id = :id")
-@NamedQuery(name = "Category.findCategoryByOwner", query = "SELECT c FROM CategoryEntity c WHERE c.owner = :owner")
-@NamedQuery(name = "Category.findCategoryByTitle", query = "SELECT c FROM CategoryEntity c WHERE c.title = :title")
-@NamedQuery(name = "Category.getAllCategories", query = "SELECT c FROM CategoryEntity c")
-@NamedQuery(name = "Category.findCategoryByOwnerID", query = "SELECT c FROM CategoryEntity c WHERE c.owner.id = :id")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.CATEGORY)
+@NamedQuery(name = "Category.findCategoryById", query = "SELECT c FROM CategoryEntity c WHERE c.id = :id",
+        hints = {@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)})
+@NamedQuery(name = "Category.findCategoryByOwner", query = "SELECT c FROM CategoryEntity c WHERE c.owner = :owner",
+        hints = {@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)})
+@NamedQuery(name = "Category.findCategoryByTitle", query = "SELECT c FROM CategoryEntity c WHERE c.title = :title",
+        hints = {@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)})
+@NamedQuery(name = "Category.getAllCategories", query = "SELECT c FROM CategoryEntity c",
+        hints = {@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)})
+@NamedQuery(name = "Category.findCategoryByOwnerID", query = "SELECT c FROM CategoryEntity c WHERE c.owner.id = :id",
+        hints = {@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)})
 public class CategoryEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -0,0 +1,38 @@
+package aor.paj.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name="id_block")
+public class IdBlockEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name="name", nullable = false, unique = true, updatable = false)
+    private String name;
+
+    @Column(name="next_id", nullable = false, unique = false, updatable = true)
+    private int nextId;
+
+    public IdBlockEntity() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getNextId() {
+        return nextId;
+    }
+
+    public void setNextId(int nextId) {
+        this.nextId = nextId;
+    }
+}
@@ -1,6 +1,7 @@
 package aor.paj.entity;
 
 import aor.paj.dto.UserDto;
+import aor.paj.utils.TaskCursor;
 import jakarta.persistence.*;
 import jdk.jfr.Category;
 
@@ -10,25 +11,65 @@ import java.time.LocalDate;
 @Entity
 @Table(name="task")
 @NamedQuery(name = "Task.findTaskById", query = "SELECT t FROM TaskEntity t WHERE t.id = :id")
+@NamedQuery(name = "Task.findTaskDtoById", query = TaskEntity.SELECT_DTO + " WHERE t.id = :id")
 @NamedQuery(name = "Task.findTaskByOwner", query = "SELECT t FROM TaskEntity t WHERE t.owner = :owner")
 @NamedQuery(name = "Task.findTaskByTitle", query = "SELECT t FROM TaskEntity t WHERE t.title = :title")
-@NamedQuery(name = "Task.getAllTasks", query = "SELECT t FROM TaskEntity t")
-@NamedQuery(name = "Task.getActiveTasks", query = "SELECT t FROM TaskEntity t WHERE t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
-@NamedQuery(name = "Task.getActiveStatusTasks", query = "SELECT t FROM TaskEntity t WHERE t.active = true AND t.status = :status ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
-@NamedQuery(name = "Task.getInactiveTasks", query = "SELECT t FROM TaskEntity t WHERE t.active = false")
-@NamedQuery(name = "Task.findTaskByOwnerId", query = "SELECT t FROM TaskEntity t WHERE t.owner.id = :id AND t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
-@NamedQuery(name = "Task.findTaskByCategory", query = "SELECT t FROM TaskEntity t WHERE t.category = :category AND t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
-@NamedQuery(name = "Task.findTaskByCategoryAndOwner", query = "SELECT t FROM TaskEntity t WHERE t.category = :category AND t.owner = :owner AND t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
-@NamedQuery(name = "Task.findActiveTaskByCategoryAndOwner", query = "SELECT t FROM TaskEntity t WHERE t.category = :category AND t.owner = :owner AND t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
-@NamedQuery(name = "Task.findTaskByStatusAndOwnerAndCategory", query = "SELECT t FROM TaskEntity t WHERE t.status = :status AND t.owner = :owner AND t.category = :category AND t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
+@NamedQuery(name = "Task.findExistingTitles", query = "SELECT t.title FROM TaskEntity t WHERE t.title IN :titles")
+@NamedQuery(name = "Task.getAllTasks", query = TaskEntity.SELECT_DTO)
+@NamedQuery(name = "Task.exportTasks", query = TaskEntity.SELECT_DTO + " ORDER BY t.id")
+@NamedQuery(name = "Task.getActiveTasks", query = TaskEntity.SELECT_DTO + " WHERE t.active = true" + TaskEntity.BOARD_ORDER)
+@NamedQuery(name = "Task.getActiveStatusTasks", query = TaskEntity.SELECT_DTO + " WHERE t.active = true AND t.status = :status" + TaskEntity.BOARD_ORDER)
+@NamedQuery(name = "Task.getInactiveTasks", query = TaskEntity.SELECT_DTO + " WHERE t.active = false")
+@NamedQuery(name = "Task.findTaskByOwnerId", query = TaskEntity.SELECT_DTO + " WHERE t.owner.id = :id AND t.active = true" + TaskEntity.BOARD_ORDER)
+@NamedQuery(name = "Task.findTaskByCategory", query = TaskEntity.SELECT_DTO + " WHERE t.category = :category AND t.active = true" + TaskEntity.BOARD_ORDER)
+@NamedQuery(name = "Task.findTaskByCategoryAndOwner", query = TaskEntity.SELECT_DTO + " WHERE t.category = :category AND t.owner = :owner AND t.active = true" + TaskEntity.BOARD_ORDER)
+@NamedQuery(name = "Task.findTaskByStatusAndOwnerAndCategory", query = "SELECT t FROM TaskEntity t WHERE t.status = :status AND t.owner = :owner AND t.category = :category AND t.active = true ORDER BY t.priority DESC, t.initialDate, t.finalDateSort")
 @NamedQuery(name = "Task.findTaskByNameAndStatus",
-        query = "SELECT t FROM TaskEntity t WHERE t.title = :title AND t.status = :status AND t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
+        query = "SELECT t FROM TaskEntity t WHERE t.title = :title AND t.status = :status AND t.active = true ORDER BY t.priority DESC, t.initialDate, t.finalDateSort")
 @NamedQuery(name = "Task.findTaskByCategoryAndStatus",
-        query = "SELECT t FROM TaskEntity t WHERE t.category = :category AND t.status = :status AND t.active = true ORDER BY t.priority DESC, t.initialDate, COALESCE(t.finalDate, '9999-12-31')")
+        query = "SELECT t FROM TaskEntity t WHERE t.category = :category AND t.status = :status AND t.active = true ORDER BY t.priority DESC, t.initialDate, t.finalDateSort")
+@NamedQuery(name = "Task.findState", query = TaskEntity.SELECT_STATE + " WHERE t.id = :id")
+@NamedQuery(name = "Task.findStates", query = TaskEntity.SELECT_STATE + " WHERE t.id IN :ids")
+@NamedQuery(name = "Task.countTasks", query = "SELECT t.category.id, t.owner.id, t.active, COUNT(t) FROM TaskEntity t"
+        + " GROUP BY t.category.id, t.owner.id, t.active")
+@NamedQuery(name = "Task.countActiveByStatus", query = "SELECT t.status, COUNT(t) FROM TaskEntity t WHERE t.active = true GROUP BY t.status")
+@NamedQuery(name = "Task.updateStatus",
+        query = "UPDATE TaskEntity t SET t.status = :status, t.version = t.version + 1 WHERE t.id = :id AND t.version = :version")
+@NamedQuery(name = "Task.updateStatusAnyVersion",
+        query = "UPDATE TaskEntity t SET t.status = :status, t.version = t.version + 1 WHERE t.id = :id")
+//Moves of a dev, who may only move their own tasks
+@NamedQuery(name = "Task.updateOwnStatus", query = "UPDATE TaskEntity t SET t.status = :status, t.version = t.version + 1"
+        + " WHERE t.id = :id AND t.version = :version AND t.owner.id = :ownerId")
+@NamedQuery(name = "Task.updateOwnStatusAnyVersion",
+        query = "UPDATE TaskEntity t SET t.status = :status, t.version = t.version + 1 WHERE t.id = :id AND t.owner.id = :ownerId")
+@NamedQuery(name = "Task.isTaskOwner", query = "SELECT COUNT(t) FROM TaskEntity t WHERE t.id = :id AND t.owner.id = :ownerId")
+//The bulk operations read the state of the tasks they change with these, locking the rows until the change commits,
+//so the counters of TaskCounterBean are moved by exactly the tasks that were changed
+@NamedQuery(name = "Task.lockInactiveStates", query = TaskEntity.SELECT_STATE + " WHERE t.active = false",
+        lockMode = LockModeType.PESSIMISTIC_WRITE)
+@NamedQuery(name = "Task.lockActiveStatesByOwner", query = TaskEntity.SELECT_STATE + " WHERE t.owner.id = :ownerId AND t.active = true",
+        lockMode = LockModeType.PESSIMISTIC_WRITE)
+@NamedQuery(name = "Task.lockStatesByOwner", query = TaskEntity.SELECT_STATE + " WHERE t.owner.id = :ownerId",
+        lockMode = LockModeType.PESSIMISTIC_WRITE)
+@NamedQuery(name = "Task.restoreTasksByIds", query = "UPDATE TaskEntity t SET t.active = true, t.version = t.version + 1 WHERE t.id IN :ids")
+@NamedQuery(name = "Task.deleteTasksByIds", query = "DELETE FROM TaskEntity t WHERE t.id IN :ids")
+@NamedQuery(name = "Task.desactivateTasksByIds", query = "UPDATE TaskEntity t SET t.active = false, t.version = t.version + 1 WHERE t.id IN :ids")
+@NamedQuery(name = "Task.changeTasksOwnerByIds", query = "UPDATE TaskEntity t SET t.owner = :owner, t.version = t.version + 1 WHERE t.id IN :ids")
 public class TaskEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    //Read-only projection of a task with only the columns of TaskDto. The dtos are not managed, so nothing is dirty checked and the owner and category entities are never loaded
+    public static final String SELECT_DTO = "SELECT new aor.paj.dto.TaskDto(t.id, t.title, t.description, t.initialDate, t.finalDate,"
+            + " t.status, t.priority, t.category.title, t.owner.username, t.active, t.version) FROM TaskEntity t";
+
+    //Projection of what TaskCounterBean counts a task under, read from the row before it is moved
+    public static final String SELECT_STATE = "SELECT new aor.paj.utils.TaskState(t.id, t.version, t.category.id, t.owner.id,"
+            + " t.status, t.active) FROM TaskEntity t";
+
+    //Order of the tasks in the board
+    public static final String BOARD_ORDER = " ORDER BY t.priority DESC, t.initialDate, t.finalDateSort";
+
     @Id
     @Column(name = "id", nullable = false, unique = true, updatable = false)
     private int id;
@@ -45,6 +86,10 @@ public class TaskEntity implements Serializable {
     @Column(name = "finalDate", nullable = true, unique = false, updatable = true)
     private LocalDate finalDate;
 
+    //Copy of finalDate used to sort the board, with the tasks without final date last, see V2__task_board_indexes.sql
+    @Column(name = "finalDateSort", nullable = false, unique = false, updatable = true)
+    private LocalDate finalDateSort;
+
     @Column(name = "status", nullable = false, unique = false, updatable = true)
     private Integer status;
 
@@ -54,6 +99,12 @@ public class TaskEntity implements Serializable {
     @Column(name = "active", nullable = false, unique = false, updatable = true)
     private Boolean active;
 
+    //Added one by every change of the task, by Hibernate on merge and by hand in the UPDATE named queries, so changes
+    //based on an older read are refused instead of silently overwriting the newer one
+    @Version
+    @Column(name = "version", nullable = false)
+    private int version;
+
     @ManyToOne
     @JoinColumn(name = "owner_id", nullable = false)
     private UserEntity owner;
@@ -105,6 +156,16 @@ public class TaskEntity implements Serializable {
         this.finalDate = finalDate;
     }
 
+    public LocalDate getFinalDateSort() {
+        return finalDateSort;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateFinalDateSort() {
+        finalDateSort = finalDate != null ? finalDate : TaskCursor.NO_FINAL_DATE;
+    }
+
     public Integer getStatus() {
         return status;
     }
@@ -121,6 +182,14 @@ public class TaskEntity implements Serializable {
         this.priority = priority;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public UserEntity getOwner() {
         return owner;
     }
@@ -156,6 +225,7 @@ public class TaskEntity implements Serializable {
                 ", status=" + status +
                 ", priority=" + priority +
                 ", active=" + active +
+                ", version=" + version +
                 ", owner=" + owner +
                 ", category=" + category +
                 '}';
@@ -1,17 +1,28 @@
 package aor.paj.entity;
 
+import aor.paj.utils.CacheRegions;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.jpa.HibernateHints;
 import org.mindrot.jbcrypt.BCrypt;
 
 @Entity
 @Table(name="user")
-@NamedQuery(name = "User.findUserByUsername", query = "SELECT u FROM UserEntity u WHERE u.username = :username")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USER)
+@NamedQuery(name = "User.findUserByUsername", query = "SELECT u FROM UserEntity u WHERE u.username = :username",
+        hints = {@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.USER_QUERIES)})
 @NamedQuery(name = "User.findUserByEmail", query = "SELECT u FROM UserEntity u WHERE u.email = :email")
+@NamedQuery(name = "User.findUsersByUsernames", query = "SELECT u FROM UserEntity u WHERE u.username IN :usernames")
+@NamedQuery(name = "User.findExistingEmails", query = "SELECT u.email FROM UserEntity u WHERE u.email IN :emails")
+@NamedQuery(name = "User.findUsernamesByIds", query = "SELECT u.id, u.username FROM UserEntity u WHERE u.id IN :ids")
 @NamedQuery(name = "User.findUserByToken", query = "SELECT DISTINCT u FROM UserEntity u WHERE u.token = :token")
 @NamedQuery(name = "User.findUserById", query = "SELECT u FROM UserEntity u WHERE u.id = :id")
 @NamedQuery(name = "User.findAllUsers", query = "SELECT u FROM UserEntity u WHERE u.id != 1 AND u.id != 2")
+@NamedQuery(name = "User.findActiveTaskOwners", query = "SELECT u, COUNT(t) FROM UserEntity u JOIN TaskEntity t ON t.owner = u WHERE t.active = true AND u.id != 1 AND u.id != 2 GROUP BY u ORDER BY u.id")
 public class UserEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
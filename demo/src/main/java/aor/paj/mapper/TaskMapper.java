@@ -35,6 +35,7 @@ public class TaskMapper {
         taskDto.setFinalDate(taskEntity.getFinalDate());
         taskDto.setStatus(taskEntity.getStatus());
         taskDto.setPriority(taskEntity.getPriority());
+        taskDto.setVersion(taskEntity.getVersion());
         if(taskEntity.getActive() != null) {
             taskDto.setActive(taskEntity.getActive());
         }
@@ -2,11 +2,18 @@ package aor.paj.responses;
 
 public class ResponseMessage {
     private String message;
+    private Integer count;
 
     public ResponseMessage(String message) {
         this.message = message;
     }
 
+    //Constructor for the bulk operations, count is the number of rows affected
+    public ResponseMessage(String message, int count) {
+        this.message = message;
+        this.count = count;
+    }
+
     public void setMessage(String message) {
         this.message = message;
     }
@@ -14,4 +21,12 @@ public class ResponseMessage {
     public String getMessage() {
         return message;
     }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
 }
@@ -0,0 +1,50 @@
+package aor.paj.service;
+
+import aor.paj.bean.AsyncExecutorBean;
+import aor.paj.responses.ResponseMessage;
+import aor.paj.utils.ExecutorPool;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+//Helpers of the services that answer with a CompletionStage, so the slow part of the request runs on a pool of
+//AsyncExecutorBean and the request thread of the server is free at once. The handlers run outside the request, so they
+//must not use the PrincipalBean; the services read what they need from it before dispatching
+final class AsyncHandlers {
+
+    //Seconds the client is asked to wait before trying again when a pool is full or too slow
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private AsyncHandlers() {
+    }
+
+    //Function that runs the handler on the pool, answering 503 when the pool is full or the handler waited too long to start
+    static CompletionStage<Response> dispatch(AsyncExecutorBean asyncExecutorBean, ExecutorPool pool, Supplier<Response> handler) {
+        return asyncExecutorBean.supply(pool, handler).exceptionally(AsyncHandlers::unavailable);
+    }
+
+    //Function that answers at once, for the checks done on the request thread before dispatching
+    static CompletionStage<Response> done(Response response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private static Response unavailable(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return Response.status(503).entity(new ResponseMessage("Server is busy, try again later"))
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+        }
+        if (cause instanceof TimeoutException) {
+            return Response.status(503).entity(new ResponseMessage("Request timed out, try again later"))
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+        }
+        //Any other error is left to the server, like in the synchronous services
+        throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+    }
+}
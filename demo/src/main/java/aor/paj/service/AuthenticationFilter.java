@@ -0,0 +1,25 @@
+package aor.paj.service;
+
+import aor.paj.bean.PrincipalBean;
+import aor.paj.bean.UserBean;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.ext.Provider;
+
+//Filter that resolves the token header once per request into the PrincipalBean used by the services.
+//It never rejects the request itself, each service still decides which endpoints need an authenticated user
+@Provider
+public class AuthenticationFilter implements ContainerRequestFilter {
+
+    @Inject
+    UserBean userBean;
+
+    @Inject
+    PrincipalBean principalBean;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        principalBean.setSession(userBean.getSession(requestContext.getHeaderString("token")));
+    }
+}
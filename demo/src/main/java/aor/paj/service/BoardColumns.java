@@ -0,0 +1,97 @@
+package aor.paj.service;
+
+import aor.paj.dto.CategoryDto;
+import aor.paj.dto.TaskDto;
+import aor.paj.dto.UserDto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+//Columns of each collection in the CSV files of /export and /import. NDJSON does not need them, the dtos are written
+//and read with JSON-B. On import the columns are found by the header, so their order does not matter
+final class BoardColumns<T> {
+
+    static final BoardColumns<TaskDto> TASKS = new BoardColumns<>(TaskDto.class,
+            Arrays.asList("id", "title", "description", "initialDate", "finalDate", "status", "priority", "category", "owner", "active"),
+            t -> Arrays.asList(t.getId(), t.getTitle(), t.getDescription(), t.getInitialDate(), t.getFinalDate(), t.getStatus(),
+                    t.getPriority(), t.getCategory(), t.getOwner(), t.isActive()),
+            row -> {
+                TaskDto taskDto = new TaskDto();
+                taskDto.setTitle(row.get("title"));
+                taskDto.setDescription(row.get("description"));
+                //The text setters turn a date they cannot read into null, but do not take null themselves
+                if (row.get("initialDate") != null) {
+                    taskDto.setInitialDate(row.get("initialDate"));
+                }
+                if (row.get("finalDate") != null) {
+                    taskDto.setFinalDate(row.get("finalDate"));
+                }
+                taskDto.setStatus(row.get("status"));
+                taskDto.setPriority(row.get("priority"));
+                taskDto.setCategory(row.get("category"));
+                taskDto.setOwner(row.get("owner"));
+                taskDto.setActive(!"false".equalsIgnoreCase(row.get("active")));
+                return taskDto;
+            });
+
+    static final BoardColumns<CategoryDto> CATEGORIES = new BoardColumns<>(CategoryDto.class,
+            Arrays.asList("id", "title", "description", "owner"),
+            c -> Arrays.asList(c.getId(), c.getTitle(), c.getDescription(), c.getOwner()),
+            row -> {
+                CategoryDto categoryDto = new CategoryDto();
+                categoryDto.setTitle(row.get("title"));
+                categoryDto.setDescription(row.get("description"));
+                categoryDto.setOwner(row.get("owner"));
+                return categoryDto;
+            });
+
+    //The password column has the BCrypt hash, so the users keep their passwords on the new board
+    static final BoardColumns<UserDto> USERS = new BoardColumns<>(UserDto.class,
+            Arrays.asList("username", "password", "email", "firstname", "lastname", "phone", "photoURL", "role", "active"),
+            u -> Arrays.asList(u.getUsername(), u.getPassword(), u.getEmail(), u.getFirstname(), u.getLastname(), u.getPhone(),
+                    u.getPhotoURL(), u.getRole(), u.isActive()),
+            row -> {
+                UserDto userDto = new UserDto();
+                userDto.setUsername(row.get("username"));
+                userDto.setPassword(row.get("password"));
+                userDto.setEmail(row.get("email"));
+                userDto.setFirstname(row.get("firstname"));
+                userDto.setLastname(row.get("lastname"));
+                userDto.setPhone(row.get("phone"));
+                userDto.setPhotoURL(row.get("photoURL"));
+                userDto.setRole(row.get("role"));
+                userDto.setActive(!"false".equalsIgnoreCase(row.get("active")));
+                return userDto;
+            });
+
+    private final Class<T> type;
+    private final List<String> names;
+    private final Function<T, List<Object>> toRow;
+    private final Function<Map<String, String>, T> fromRow;
+
+    private BoardColumns(Class<T> type, List<String> names, Function<T, List<Object>> toRow, Function<Map<String, String>, T> fromRow) {
+        this.type = type;
+        this.names = names;
+        this.toRow = toRow;
+        this.fromRow = fromRow;
+    }
+
+    Class<T> getType() {
+        return type;
+    }
+
+    List<String> getNames() {
+        return names;
+    }
+
+    List<Object> toRow(T item) {
+        return toRow.apply(item);
+    }
+
+    //Empty fields are read as null, like the missing ones
+    T fromRow(Map<String, String> row) {
+        return fromRow.apply(row);
+    }
+}
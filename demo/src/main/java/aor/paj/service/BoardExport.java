@@ -0,0 +1,68 @@
+package aor.paj.service;
+
+import aor.paj.utils.CsvWriter;
+import aor.paj.utils.JsonUtils;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+//StreamingOutput of GET /export, writes one line for each item as the source hands it over, like JsonArrayOutput,
+//so a board of any size is exported with constant memory
+class BoardExport<T> implements StreamingOutput {
+
+    private final TransferFormat format;
+    private final BoardColumns<T> columns;
+    private final Consumer<Consumer<T>> source;
+
+    BoardExport(TransferFormat format, BoardColumns<T> columns, Consumer<Consumer<T>> source) {
+        this.format = format;
+        this.columns = columns;
+        this.source = source;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        Consumer<T> line;
+        if (format == TransferFormat.CSV) {
+            CsvWriter csvWriter = new CsvWriter(writer);
+            csvWriter.writeRow(columns.getNames());
+            line = item -> {
+                try {
+                    csvWriter.writeRow(columns.toRow(item));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        } else {
+            //Jsonb closes the writer it is given after each item, see JsonArrayOutput
+            Writer element = new FilterWriter(writer) {
+                @Override
+                public void close() {
+                }
+            };
+            line = item -> {
+                try {
+                    JsonUtils.getJsonb().toJson(item, element);
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        }
+        try {
+            source.accept(line);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,120 @@
+package aor.paj.service;
+
+import aor.paj.dto.BatchResultDto;
+import aor.paj.dto.ImportResultDto;
+import aor.paj.utils.CsvReader;
+import aor.paj.utils.JsonUtils;
+import jakarta.json.bind.JsonbException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+//Reads the body of POST /import one row at a time and hands the rows to the importer in chunks. Each chunk is saved in
+//its own transaction, so the memory and the size of a transaction do not grow with the file
+class BoardImport<T> {
+
+    //Errors kept in the result, the rest are only counted as skipped
+    static final int MAX_ERRORS = 100;
+
+    private final TransferFormat format;
+    private final BoardColumns<T> columns;
+    private final int chunkSize;
+    private final Function<List<T>, List<BatchResultDto>> importer;
+
+    private final ImportResultDto result = new ImportResultDto();
+    private final List<T> chunk = new ArrayList<>();
+    private final List<Integer> chunkLines = new ArrayList<>();
+
+    BoardImport(TransferFormat format, BoardColumns<T> columns, int chunkSize, Function<List<T>, List<BatchResultDto>> importer) {
+        this.format = format;
+        this.columns = columns;
+        this.chunkSize = chunkSize;
+        this.importer = importer;
+    }
+
+    ImportResultDto run(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        if (format == TransferFormat.CSV) {
+            readCsv(reader);
+        } else {
+            readNdjson(reader);
+        }
+        flush();
+        return result;
+    }
+
+    private void readNdjson(BufferedReader reader) throws IOException {
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                add(JsonUtils.getJsonb().fromJson(line, columns.getType()), lineNumber);
+            } catch (JsonbException e) {
+                result.setRead(result.getRead() + 1);
+                skip(lineNumber, "Invalid JSON");
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader) throws IOException {
+        CsvReader csvReader = new CsvReader(reader);
+        List<String> header = csvReader.next();
+        if (header == null) {
+            return;
+        }
+        List<String> fields;
+        while ((fields = csvReader.next()) != null) {
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                if (!fields.get(i).isEmpty()) {
+                    row.put(header.get(i).trim(), fields.get(i));
+                }
+            }
+            add(columns.fromRow(row), csvReader.getRecordLine());
+        }
+    }
+
+    private void add(T item, int lineNumber) {
+        result.setRead(result.getRead() + 1);
+        chunk.add(item);
+        chunkLines.add(lineNumber);
+        if (chunk.size() == chunkSize) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (BatchResultDto itemResult : importer.apply(chunk)) {
+            if (itemResult.getStatus() == 201) {
+                result.setImported(result.getImported() + 1);
+            } else {
+                skip(chunkLines.get(itemResult.getIndex()), itemResult.getMessage());
+            }
+        }
+        result.setChunks(result.getChunks() + 1);
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private void skip(int lineNumber, String message) {
+        result.setSkipped(result.getSkipped() + 1);
+        if (result.getErrors().size() < MAX_ERRORS) {
+            result.getErrors().add("Line " + lineNumber + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package aor.paj.service;
+
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+//Helpers of the listings polled by the frontend, that answer If-None-Match from the collection versions before any query runs
+final class ConditionalGet {
+
+    //The listings are only sent to authenticated users, so only the browser may keep them, and it must check the tag on every poll
+    static final CacheControl REVALIDATE = new CacheControl();
+
+    static {
+        REVALIDATE.setNoCache(true);
+        REVALIDATE.setPrivate(true);
+    }
+
+    private ConditionalGet() {
+    }
+
+    //Function that returns the 304 response if the tag sent in If-None-Match is still current, or null if the body must be built
+    static Response notModified(Request request, EntityTag tag) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        return notModified != null ? notModified.cacheControl(REVALIDATE).build() : null;
+    }
+}
@@ -0,0 +1,77 @@
+package aor.paj.service;
+
+import aor.paj.bean.CategoryBean;
+import aor.paj.bean.PrincipalBean;
+import aor.paj.bean.TaskBean;
+import aor.paj.bean.UserBean;
+import aor.paj.responses.ResponseMessage;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.function.Consumer;
+
+//Services that stream a whole collection of the board as NDJSON or CSV, to back it up or move it to another board with
+//POST /import. Only for the po, the users are exported with their password hashes
+@Path("/export")
+public class ExportService {
+
+    @Inject
+    PrincipalBean principalBean;
+
+    @Inject
+    TaskBean taskBean;
+
+    @Inject
+    CategoryBean categoryBean;
+
+    @Inject
+    UserBean userBean;
+
+    //Service that sends every task, active or not, in id order
+    @GET
+    @Path("/tasks")
+    @Produces({TransferFormat.NDJSON_TYPE, TransferFormat.CSV_TYPE, MediaType.APPLICATION_JSON})
+    public Response exportTasks(@QueryParam("format") String format) {
+        return export(format, "tasks", BoardColumns.TASKS, taskBean::streamAllTasks);
+    }
+
+    //Service that sends every category
+    @GET
+    @Path("/categories")
+    @Produces({TransferFormat.NDJSON_TYPE, TransferFormat.CSV_TYPE, MediaType.APPLICATION_JSON})
+    public Response exportCategories(@QueryParam("format") String format) {
+        return export(format, "categories", BoardColumns.CATEGORIES, categoryBean::streamAllCategories);
+    }
+
+    //Service that sends every user but the admin and the user that keeps the tasks of deleted users
+    @GET
+    @Path("/users")
+    @Produces({TransferFormat.NDJSON_TYPE, TransferFormat.CSV_TYPE, MediaType.APPLICATION_JSON})
+    public Response exportUsers(@QueryParam("format") String format) {
+        return export(format, "users", BoardColumns.USERS, userBean::streamAllUsers);
+    }
+
+    //The rows are read from the database while the body is written, see BoardExport
+    private <T> Response export(String format, String name, BoardColumns<T> columns, Consumer<Consumer<T>> source) {
+        if (!principalBean.isAuthenticated()) {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).type(MediaType.APPLICATION_JSON).build();
+        }
+        if (!principalBean.getRole().equals("po")) {
+            return Response.status(403).entity(new ResponseMessage("Forbidden")).type(MediaType.APPLICATION_JSON).build();
+        }
+        TransferFormat transferFormat = TransferFormat.fromParam(format);
+        if (transferFormat == null) {
+            return Response.status(400).entity(new ResponseMessage("Invalid format")).type(MediaType.APPLICATION_JSON).build();
+        }
+        return Response.status(200).entity(new BoardExport<>(transferFormat, columns, source))
+                .type(transferFormat.getMediaType() + ";charset=UTF-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + transferFormat.getName() + "\"")
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package aor.paj.service;
+
+import aor.paj.bean.CategoryBean;
+import aor.paj.bean.PrincipalBean;
+import aor.paj.bean.TaskBean;
+import aor.paj.bean.TaskEventBean;
+import aor.paj.bean.UserBean;
+import aor.paj.dto.BatchResultDto;
+import aor.paj.dto.ImportResultDto;
+import aor.paj.responses.ResponseMessage;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Function;
+
+//Services that read a file of GET /export and create its rows, committing every chunk of rows, so a file of any size is
+//imported with constant memory. Rows that exist already, by title, username or email, are skipped. The users and the
+//categories must be imported before the tasks that refer to them. Only for the po
+@Path("/import")
+public class ImportService {
+
+    //Rows saved in each transaction, at most 1000 so the IN lists of the checks stay small
+    private static final int CHUNK_SIZE = Math.max(1, Math.min(1000, Integer.getInteger("aor.paj.import.chunkSize", 1000)));
+
+    @Inject
+    PrincipalBean principalBean;
+
+    @Inject
+    TaskBean taskBean;
+
+    @Inject
+    CategoryBean categoryBean;
+
+    @Inject
+    UserBean userBean;
+
+    @Inject
+    TaskEventBean taskEventBean;
+
+    @POST
+    @Path("/tasks")
+    @Consumes({TransferFormat.NDJSON_TYPE, TransferFormat.CSV_TYPE})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importTasks(@QueryParam("format") String format, @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                                InputStream body) throws IOException {
+        Response response = importRows(format, contentType, body, BoardColumns.TASKS, taskBean::importTasks);
+        if (response.getEntity() instanceof ImportResultDto && ((ImportResultDto) response.getEntity()).getImported() > 0) {
+            //One reload for the whole file
+            taskEventBean.publishReload();
+        }
+        return response;
+    }
+
+    @POST
+    @Path("/categories")
+    @Consumes({TransferFormat.NDJSON_TYPE, TransferFormat.CSV_TYPE})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importCategories(@QueryParam("format") String format, @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                                     InputStream body) throws IOException {
+        return importRows(format, contentType, body, BoardColumns.CATEGORIES, categoryBean::importCategories);
+    }
+
+    //The role of each row must be dev, sm or po, or empty for dev. The password may be plain text, which is hashed, or a
+    //BCrypt hash of GET /export, $2a$ or $2b$ with at least the configured cost, which is kept so the users log in as before.
+    //Rows with another role or a weaker or malformed hash are answered with 400
+    @POST
+    @Path("/users")
+    @Consumes({TransferFormat.NDJSON_TYPE, TransferFormat.CSV_TYPE})
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response importUsers(@QueryParam("format") String format, @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+                                InputStream body) throws IOException {
+        return importRows(format, contentType, body, BoardColumns.USERS, userBean::importUsers);
+    }
+
+    private <T> Response importRows(String format, String contentType, InputStream body, BoardColumns<T> columns,
+                                    Function<List<T>, List<BatchResultDto>> importer) throws IOException {
+        if (!principalBean.isAuthenticated()) {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+        if (!principalBean.getRole().equals("po")) {
+            return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
+        }
+        //Without ?format= the content type of the body decides
+        TransferFormat transferFormat = format == null && contentType != null && contentType.startsWith(TransferFormat.CSV_TYPE)
+                ? TransferFormat.CSV : TransferFormat.fromParam(format);
+        if (transferFormat == null) {
+            return Response.status(400).entity(new ResponseMessage("Invalid format")).build();
+        }
+        ImportResultDto result = new BoardImport<>(transferFormat, columns, CHUNK_SIZE, importer).run(body);
+        return Response.status(200).entity(result).build();
+    }
+}
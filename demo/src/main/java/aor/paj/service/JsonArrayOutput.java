@@ -0,0 +1,56 @@
+package aor.paj.service;
+
+import aor.paj.utils.JsonUtils;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+//StreamingOutput that writes a JSON array one element at a time, as the source hands them over, so the response
+//never holds the whole list nor the whole JSON in memory. The source runs when the body is written, after the service returns
+public class JsonArrayOutput<T> implements StreamingOutput {
+
+    private final Consumer<Consumer<T>> source;
+
+    public JsonArrayOutput(Consumer<Consumer<T>> source) {
+        this.source = source;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        //Jsonb closes the writer it is given after each element, but the array is not finished yet. Not flushing here
+        //either, the buffered writer sends the elements in blocks
+        Writer element = new FilterWriter(writer) {
+            @Override
+            public void close() {
+            }
+        };
+        boolean[] first = {true};
+        writer.write('[');
+        try {
+            source.accept(item -> {
+                try {
+                    if (!first[0]) {
+                        writer.write(',');
+                    }
+                    first[0] = false;
+                    JsonUtils.getJsonb().toJson(item, element);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.write(']');
+        writer.flush();
+    }
+}
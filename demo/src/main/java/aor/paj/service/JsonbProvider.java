@@ -0,0 +1,20 @@
+package aor.paj.service;
+
+import aor.paj.utils.JsonUtils;
+import jakarta.json.bind.Jsonb;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Provider;
+
+//Gives the JSON-B message body reader and writer of JAX-RS the shared Jsonb of JsonUtils, so the DTOs returned by the
+//services are written straight to the response stream instead of a new Jsonb being configured for them
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class JsonbProvider implements ContextResolver<Jsonb> {
+
+    @Override
+    public Jsonb getContext(Class<?> type) {
+        return JsonUtils.getJsonb();
+    }
+}
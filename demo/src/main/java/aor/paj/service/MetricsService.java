@@ -0,0 +1,115 @@
+package aor.paj.service;
+
+import aor.paj.bean.AsyncExecutorBean;
+import aor.paj.bean.HibernateStatsBean;
+import aor.paj.bean.LoginThrottleBean;
+import aor.paj.bean.PasswordHashBean;
+import aor.paj.bean.PrincipalBean;
+import aor.paj.bean.SessionCacheBean;
+import aor.paj.responses.ResponseMessage;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+@Path("/metrics")
+public class MetricsService {
+
+    @Inject
+    PrincipalBean principalBean;
+
+    @Inject
+    SessionCacheBean sessionCacheBean;
+
+    @Inject
+    HibernateStatsBean hibernateStatsBean;
+
+    @Inject
+    AsyncExecutorBean asyncExecutorBean;
+
+    @Inject
+    PasswordHashBean passwordHashBean;
+
+    @Inject
+    LoginThrottleBean loginThrottleBean;
+
+    //Service that sends the hit, miss and eviction counters of the session cache, only for the po
+    @GET
+    @Path("/sessions")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getSessionCacheStats() {
+        if (principalBean.isAuthenticated()) {
+            if (principalBean.getRole().equals("po")) {
+                return Response.status(200).entity(sessionCacheBean.getStats()).build();
+            } else {
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
+            }
+        } else {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+    }
+
+    //Service that sends the hit, miss and put counters of the Hibernate second-level and query caches, only for the po
+    @GET
+    @Path("/hibernate")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getHibernateStats() {
+        if (principalBean.isAuthenticated()) {
+            if (principalBean.getRole().equals("po")) {
+                return Response.status(200).entity(hibernateStatsBean.getStats()).build();
+            } else {
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
+            }
+        } else {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+    }
+
+    //Service that sends the size, queue and rejected and timed out counters of the request pools, only for the po
+    @GET
+    @Path("/executors")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getExecutorStats() {
+        if (principalBean.isAuthenticated()) {
+            if (principalBean.getRole().equals("po")) {
+                return Response.status(200).entity(asyncExecutorBean.getStats()).build();
+            } else {
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
+            }
+        } else {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+    }
+
+    //Service that sends the cost, counters and latency of the password hashing and the queue of the hashing pool, only for the po
+    @GET
+    @Path("/passwords")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getPasswordHashStats() {
+        if (principalBean.isAuthenticated()) {
+            if (principalBean.getRole().equals("po")) {
+                return Response.status(200).entity(passwordHashBean.getStats()).build();
+            } else {
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
+            }
+        } else {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+    }
+
+    //Service that sends the limits of the login throttle and the attempts it let through and rejected, only for the po
+    @GET
+    @Path("/logins")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getLoginThrottleStats() {
+        if (principalBean.isAuthenticated()) {
+            if (principalBean.getRole().equals("po")) {
+                return Response.status(200).entity(loginThrottleBean.getStats()).build();
+            } else {
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
+            }
+        } else {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+    }
+}
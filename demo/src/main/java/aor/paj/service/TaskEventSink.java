@@ -0,0 +1,102 @@
+package aor.paj.service;
+
+import aor.paj.bean.TaskEventBean;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+//One open GET /tasks/events connection. Events wait in a bounded queue and are written by the own thread of the
+//connection, one at a time, so the publisher only queues them and a slow client never holds it. If the client falls too
+//far behind the connection is closed, and the client resumes with Last-Event-ID from the history kept by TaskEventBean
+class TaskEventSink implements Consumer<TaskEventBean.Event> {
+
+    //Events waiting to be sent to one client before it is disconnected, as many as the history so a resuming client
+    //can always take all the events it missed
+    static final int MAX_PENDING = TaskEventBean.HISTORY_SIZE;
+
+    private final SseEventSink sink;
+    private final Sse sse;
+    private final TaskEventBean taskEventBean;
+    //Runs the writes to this connection, one at a time
+    private final ExecutorService sender;
+    private final BlockingQueue<TaskEventBean.Event> pending = new ArrayBlockingQueue<>(MAX_PENDING);
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    TaskEventSink(SseEventSink sink, Sse sse, TaskEventBean taskEventBean, ExecutorService sender) {
+        this.sink = sink;
+        this.sse = sse;
+        this.taskEventBean = taskEventBean;
+        this.sender = sender;
+    }
+
+    //Called by TaskEventBean while it holds its lock, so it only queues the event
+    @Override
+    public void accept(TaskEventBean.Event event) {
+        if (!pending.offer(event)) {
+            close();
+            return;
+        }
+        scheduleNext();
+    }
+
+    //The connection is closed on the sender as well, after the write in progress
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            taskEventBean.unsubscribe(this);
+            pending.clear();
+            try {
+                sender.execute(sink::close);
+            } catch (RejectedExecutionException e) {
+                sink.close();
+            }
+            sender.shutdown();
+        }
+    }
+
+    private void scheduleNext() {
+        if (!closed.get() && !pending.isEmpty() && sending.compareAndSet(false, true)) {
+            try {
+                sender.execute(this::sendNext);
+            } catch (RejectedExecutionException e) {
+                sending.set(false);
+                close();
+            }
+        }
+    }
+
+    private void sendNext() {
+        TaskEventBean.Event event = pending.poll();
+        if (closed.get() || event == null) {
+            //An event queued after the poll found the flag still set, so it is scheduled here
+            sending.set(false);
+            scheduleNext();
+            return;
+        }
+        if (sink.isClosed()) {
+            sending.set(false);
+            close();
+            return;
+        }
+        sink.send(sse.newEventBuilder()
+                .id(Long.toString(event.getId()))
+                .name(event.getType())
+                //Already JSON, written as it is
+                .data(event.getData())
+                .build())
+                .whenComplete((result, error) -> {
+                    sending.set(false);
+                    if (error != null) {
+                        close();
+                    } else {
+                        scheduleNext();
+                    }
+                });
+    }
+}
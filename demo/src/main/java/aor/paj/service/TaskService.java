@@ -1,22 +1,39 @@
 package aor.paj.service;
 
+import aor.paj.bean.AsyncExecutorBean;
+import aor.paj.bean.CollectionVersionBean;
+import aor.paj.bean.PrincipalBean;
 import aor.paj.bean.TaskBean;
+import aor.paj.bean.TaskEventBean;
 import aor.paj.bean.UserBean;
+import aor.paj.dto.SessionDto;
 import aor.paj.dto.StatusUpdate;
 import aor.paj.dto.TaskDto;
+import aor.paj.dto.TaskFilterDto;
+import aor.paj.dto.TaskMoveDto;
+import aor.paj.dto.TaskPageDto;
 import aor.paj.entity.TaskEntity;
 import aor.paj.responses.ResponseMessage;
-import aor.paj.utils.JsonUtils;
+import aor.paj.utils.ExecutorPool;
+import aor.paj.utils.TaskCursor;
+import aor.paj.utils.VersionedCollection;
 import aor.paj.validator.TaskValidator;
 import aor.paj.validator.UserValidator;
 import jakarta.inject.Inject;
 import jakarta.json.bind.JsonbException;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletionStage;
 
 @Path("/tasks")
 public class TaskService {
@@ -27,93 +44,213 @@ public class TaskService {
     @Inject
     UserBean userBean;
 
+    @Inject
+    PrincipalBean principalBean;
+
+    @Inject
+    CollectionVersionBean collectionVersionBean;
+
+    @Inject
+    TaskEventBean taskEventBean;
+
+    @Inject
+    AsyncExecutorBean asyncExecutorBean;
+
+    //Largest page accepted in GET /tasks?limit=, bigger limits are reduced to it
+    private static final int MAX_PAGE_SIZE = 500;
+
+    //Largest array accepted in POST /tasks/batch and PUT /tasks/status
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    //Header of GET /tasks with the cursor to send as ?after= to get the next page, absent on the last page
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     //Service that receives a taskdto and a token and creates a new task with the user in token and adds the task to the task table in the database mysql
     @POST
     @Path("/")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response addTask(@HeaderParam("token") String token, TaskDto t) {
-        if (userBean.isValidUserByToken(token)) {
+    public Response addTask(TaskDto t) {
+        if (principalBean.isAuthenticated()) {
             if (TaskValidator.isValidTask(t) && !taskBean.taskTitleExists(t)) {
-                if (taskBean.addTask(token, t)) {
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is added"))).build();
+                if (taskBean.addTask(principalBean.getSession(), t)) {
+                    return Response.status(200).entity(new ResponseMessage("Task is added")).build();
                 } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot add task"))).build();
+                    return Response.status(400).entity(new ResponseMessage("Cannot add task")).build();
                 }
             } else {
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Verify the fields. Title is unique"))).build();
+                return Response.status(400).entity(new ResponseMessage("Verify the fields. Title is unique")).build();
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+    }
+    //Service that receives an array of taskdtos and creates the valid ones in one transaction, with the user as owner.
+    //It answers 200 with the outcome of each task, in the order they were sent
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> addTasks(List<TaskDto> tasks) {
+        if (!principalBean.isAuthenticated()) {
+            return AsyncHandlers.done(Response.status(401).entity(new ResponseMessage("Unauthorized")).build());
+        }
+        if (tasks == null || tasks.isEmpty()) {
+            return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("No tasks to add")).build());
+        }
+        if (tasks.size() > MAX_BATCH_SIZE) {
+            return AsyncHandlers.done(Response.status(413).entity(new ResponseMessage("At most " + MAX_BATCH_SIZE + " tasks at a time")).build());
         }
+        SessionDto session = principalBean.getSession();
+        return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.DB,
+                () -> Response.status(200).entity(taskBean.addTasks(session, tasks)).build());
     }
+
     @GET
     @Path("/")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getTasks(@HeaderParam("token") String token, @QueryParam("category") String category, @QueryParam("username") String username, @QueryParam("active") Boolean active, @QueryParam("id") Integer id) {
-        if (userBean.isValidUserByToken(token)) {
+    public CompletionStage<Response> getTasks(@QueryParam("category") String category, @QueryParam("username") String username, @QueryParam("active") Boolean active, @QueryParam("status") Integer status,
+                                              @QueryParam("id") Integer id, @QueryParam("limit") Integer limit, @QueryParam("after") String after,
+                                              @Context Request request) {
+        if (principalBean.isAuthenticated()) {
+            EntityTag tag = new EntityTag(collectionVersionBean.getTag(VersionedCollection.TASKS, VersionedCollection.CATEGORIES));
+            Response notModified = ConditionalGet.notModified(request, tag);
+            if (notModified != null) {
+                return AsyncHandlers.done(notModified);
+            }
             if (id != null) {
-                return Response.status(200).entity(taskBean.getTaskById(id)).build();
+                return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.DB,
+                        () -> Response.status(200).entity(taskBean.getTaskById(id)).tag(tag).cacheControl(ConditionalGet.REVALIDATE).build());
             } else {
-                List<TaskDto> tasks;
-                if (category != null && !category.isEmpty() && username != null && !username.isEmpty()) {
-                    tasks = taskBean.getTasksByCategoryAndOwner(category, username);
-                } else if (category != null && !category.isEmpty()) {
-                    tasks = taskBean.getTasksByCategory(category);
-                } else if (username != null && !username.isEmpty()) {
-                    tasks = taskBean.getTasksByOwner(username);
-                } else if (active != null) {
-                    if (active) {
-                        tasks = taskBean.getActiveTasks();
-                    } else {
-                        tasks = taskBean.getInactiveTasks();
+                if (limit != null && limit <= 0) {
+                    return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("Invalid limit")).build());
+                }
+                TaskCursor cursor = null;
+                if (after != null && !after.isEmpty()) {
+                    try {
+                        cursor = TaskCursor.decode(after);
+                    } catch (IllegalArgumentException e) {
+                        return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("Invalid cursor")).build());
                     }
-                } else {
-                    tasks = taskBean.getActiveTasks();
                 }
-                return Response.status(200).entity(tasks).build();
+                TaskFilterDto filter = new TaskFilterDto(emptyToNull(category), emptyToNull(username), status, active);
+                TaskCursor start = cursor;
+                if (limit == null) {
+                    //Without a limit the whole board is sent, so it is written while it is read instead of built as a list first
+                    return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.DB,
+                            () -> Response.status(200).entity(new JsonArrayOutput<TaskDto>(consumer -> taskBean.streamTasks(filter, start, consumer))).tag(tag).cacheControl(ConditionalGet.REVALIDATE).build());
+                }
+                return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.DB, () -> {
+                    TaskPageDto page = taskBean.getTasks(filter, start, Math.min(limit, MAX_PAGE_SIZE));
+                    Response.ResponseBuilder response = Response.status(200).entity(page.getTasks()).tag(tag).cacheControl(ConditionalGet.REVALIDATE);
+                    if (page.getNextCursor() != null) {
+                        response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                    }
+                    return response.build();
+                });
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return AsyncHandlers.done(Response.status(401).entity(new ResponseMessage("Unauthorized")).build());
+        }
+    }
+    //Service that keeps the connection open and sends every change of the tasks as a server-sent event, so the board
+    //does not need to poll GET /tasks. A client that reconnects with Last-Event-ID gets the events it missed, or a reload
+    //event if they are too old
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void getTaskEvents(@Context SseEventSink sink, @Context Sse sse, @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId) {
+        if (!principalBean.isAuthenticated()) {
+            throw new WebApplicationException(Response.status(401).entity(new ResponseMessage("Unauthorized")).type(MediaType.APPLICATION_JSON).build());
+        }
+        Long resumeFrom = null;
+        if (lastEventId != null && !lastEventId.isEmpty()) {
+            try {
+                resumeFrom = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                //Not one of our ids, the client gets a reload event
+                resumeFrom = -1L;
+            }
+        }
+        taskEventBean.subscribe(resumeFrom, new TaskEventSink(sink, sse, taskEventBean, asyncExecutorBean.serialExecutor()));
+    }
+
+    //Service that returns the number of active tasks by status, category and owner, and of active and inactive tasks,
+    //taken from the counters kept in memory and, for the statuses, from one grouped query on an index
+    @GET
+    @Path("/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getTaskStats(@Context Request request) {
+        if (!principalBean.isAuthenticated()) {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }
+        EntityTag tag = new EntityTag(collectionVersionBean.getTag(VersionedCollection.TASKS, VersionedCollection.CATEGORIES));
+        Response notModified = ConditionalGet.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
         }
+        return Response.status(200).entity(taskBean.getTaskStats()).tag(tag).cacheControl(ConditionalGet.REVALIDATE).build();
     }
+
     @PUT
     @Path("/{id}/status")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response updateTaskStatus(@HeaderParam("token") String token, @PathParam("id") int id, StatusUpdate statusUpdate) {
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response updateTaskStatus(@PathParam("id") int id, StatusUpdate statusUpdate) {
         int status = statusUpdate.getStatus();
-        if (userBean.isValidUserByToken(token) && TaskValidator.isValidStatus(status)) {
-            taskBean.updateTaskStatus(id, status);
-            return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task status is updated"))).build();
+        if (principalBean.isAuthenticated() && TaskValidator.isValidStatus(status)) {
+            int result = taskBean.updateTaskStatus(principalBean.getSession(), id, status, statusUpdate.getVersion());
+            if (result == 404) {
+                return Response.status(404).entity(new ResponseMessage("Task does not exist")).build();
+            } else if (result == 403) {
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
+            } else if (result == 409) {
+                return Response.status(409).entity(new ResponseMessage("Task was changed by another user, load it again")).build();
+            }
+            return Response.status(200).entity(new ResponseMessage("Task status is updated")).build();
         } else {
-            return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid status"))).build();
+            return Response.status(400).entity(new ResponseMessage("Invalid status")).build();
+        }
+    }
+    //Service that receives many moves of cards, {id, status, expectedVersion}, and applies them in one transaction. It answers
+    //200 with the outcome of each move, in the order they were sent, 409 for the ones based on an old version of the task
+    //and 403 for the cards a dev may not edit because they are of another owner
+    @PUT
+    @Path("/status")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public CompletionStage<Response> updateTaskStatuses(List<TaskMoveDto> moves) {
+        if (!principalBean.isAuthenticated()) {
+            return AsyncHandlers.done(Response.status(401).entity(new ResponseMessage("Unauthorized")).build());
+        }
+        if (moves == null || moves.isEmpty()) {
+            return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("No tasks to move")).build());
         }
+        if (moves.size() > MAX_BATCH_SIZE) {
+            return AsyncHandlers.done(Response.status(413).entity(new ResponseMessage("At most " + MAX_BATCH_SIZE + " tasks at a time")).build());
+        }
+        SessionDto session = principalBean.getSession();
+        return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.DB,
+                () -> Response.status(200).entity(taskBean.updateTaskStatuses(session, moves)).build());
     }
     @PUT
     @Path("/{id}/desactivate")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response desactivateTask(@HeaderParam("token") String token, @PathParam("id") int id) {
-        if (userBean.isValidUserByToken(token)) {
-            String role = userBean.getUserRole(token);
-            if (taskBean.taskBelongsToUser(token, id) || role.equals("sm") || role.equals("po")){
-                if (taskBean.desactivateTask(id)) {
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is desactivated"))).build();
-                } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot desactivate task"))).build();
-                }
-            } else if (!role.equals("dev")) {
-                if (taskBean.desactivateTask(id)) {
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is desactivated"))).build();
-                } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot desactivate task"))).build();
+    public Response desactivateTask(@PathParam("id") int id) {
+        if (principalBean.isAuthenticated()) {
+            String role = principalBean.getRole();
+            if (!role.equals("dev") || userBean.hasPermissionToEdit(principalBean.getSession(), id)) {
+                if (taskBean.desactivateTask(id) == 409) {
+                    return Response.status(409).entity(new ResponseMessage("Task was changed by another user, load it again")).build();
                 }
+                return Response.status(200).entity(new ResponseMessage("Task is desactivated")).build();
             } else {
-                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
     //Service that receives a token, a taskdto and a task id and updates the task with the id that is received
@@ -123,38 +260,40 @@ public class TaskService {
 //    @Produces(MediaType.APPLICATION_JSON)
 //    public Response updateTask(@HeaderParam("token") String token, TaskDto t, @QueryParam("id") int id) {
 //        if (userBean.isValidUserByToken(token)) {
-//            if(userBean.hasPermissionToEdit(token, id)){
+//            if(userBean.hasPermissionToEdit(principalBean.getSession(), id)){
 //                if (TaskValidator.isValidTaskEdit(t)) {
 //                    taskBean.updateTask(t, id);
-//                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is updated"))).build();
+//                    return Response.status(200).entity(new ResponseMessage("Task is updated")).build();
 //                } else {
-//                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid task"))).build();
+//                    return Response.status(400).entity(new ResponseMessage("Invalid task")).build();
 //                }
 //            } else {
-//                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+//                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
 //            }
 //        } else {
-//            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+//            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
 //        }
 //    }
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response updateTask(TaskDto t, @HeaderParam("token") String token, @PathParam("id") int id) {
-        if (userBean.isValidUserByToken(token)) {
-            if(userBean.hasPermissionToEdit(token, id)){
+    public Response updateTask(TaskDto t, @PathParam("id") int id) {
+        if (principalBean.isAuthenticated()) {
+            if(userBean.hasPermissionToEdit(principalBean.getSession(), id)){
                 if (TaskValidator.isValidTaskEdit(t)) {
-                    taskBean.updateTask(t, id);
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is updated"))).build();
+                    if (taskBean.updateTask(t, id) == 409) {
+                        return Response.status(409).entity(new ResponseMessage("Task was changed by another user, load it again")).build();
+                    }
+                    return Response.status(200).entity(new ResponseMessage("Task is updated")).build();
                 } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Verify your fields. Title is unique"))).build();
+                    return Response.status(400).entity(new ResponseMessage("Verify your fields. Title is unique")).build();
                 }
             } else {
-                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
     //Service that receives a token and a task name, validates the token and sets the active of that task to true
@@ -167,15 +306,15 @@ public class TaskService {
 //            String role = userBean.getUserRole(token);
 //            if (role.equals("sm") || role.equals("po")) {
 //                if (taskBean.restoreTask(name)) {
-//                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is restored"))).build();
+//                    return Response.status(200).entity(new ResponseMessage("Task is restored")).build();
 //                } else {
-//                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot restore task"))).build();
+//                    return Response.status(400).entity(new ResponseMessage("Cannot restore task")).build();
 //                }
 //            } else {
-//                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+//                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
 //            }
 //        } else {
-//            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+//            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
 //        }
 //    }
     //Service that receives a token and a task name, validates the token, checks if user = po, and deletes the task from the database
@@ -188,35 +327,35 @@ public class TaskService {
 //            String role = userBean.getUserRole(token);
 //            if (role.equals("po")) {
 //                if (taskBean.deleteTask(name)) {
-//                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is deleted"))).build();
+//                    return Response.status(200).entity(new ResponseMessage("Task is deleted")).build();
 //                } else {
-//                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot delete task"))).build();
+//                    return Response.status(400).entity(new ResponseMessage("Cannot delete task")).build();
 //                }
 //            } else {
-//                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+//                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
 //            }
 //        } else {
-//            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+//            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
 //        }
 //    }
     @DELETE
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deleteTask(@HeaderParam("token") String token, @PathParam ("id") int id){
-        if (userBean.isValidUserByToken(token)) {
-            String role = userBean.getUserRole(token);
+    public Response deleteTask(@PathParam ("id") int id){
+        if (principalBean.isAuthenticated()) {
+            String role = principalBean.getRole();
             if (role.equals("po")) {
                 if (taskBean.deleteTask(id)) {
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is deleted"))).build();
+                    return Response.status(200).entity(new ResponseMessage("Task is deleted")).build();
                 } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot delete task"))).build();
+                    return Response.status(400).entity(new ResponseMessage("Cannot delete task")).build();
                 }
             } else {
-                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
     //Service that receives a token, checks if the user is valid, checks if user role = sm or po, and restore all tasks
@@ -224,40 +363,36 @@ public class TaskService {
     @Path("/restore")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response restoreAllTasks(@HeaderParam("token") String token) {
-        if (userBean.isValidUserByToken(token)) {
-            String role = userBean.getUserRole(token);
+    public Response restoreAllTasks() {
+        if (principalBean.isAuthenticated()) {
+            String role = principalBean.getRole();
             if (role.equals("sm") || role.equals("po")) {
-                if (taskBean.restoreAllTasks()) {
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("All tasks are restored"))).build();
-                } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot restore all tasks"))).build();
-                }
+                int restored = taskBean.restoreAllTasks();
+                return Response.status(200).entity(new ResponseMessage("All tasks are restored", restored)).build();
             } else {
-                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
     @PUT
     @Path("/{id}/restore")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response restoreTask(@HeaderParam("token") String token, @PathParam("id") int id) {
-        if (userBean.isValidUserByToken(token)) {
-            String role = userBean.getUserRole(token);
+    public Response restoreTask(@PathParam("id") int id) {
+        if (principalBean.isAuthenticated()) {
+            String role = principalBean.getRole();
             if (role.equals("sm") || role.equals("po")) {
-                if (taskBean.restoreTask(id)) {
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Task is restored"))).build();
-                } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot restore task"))).build();
+                if (taskBean.restoreTask(id) == 409) {
+                    return Response.status(409).entity(new ResponseMessage("Task was changed by another user, load it again")).build();
                 }
+                return Response.status(200).entity(new ResponseMessage("Task is restored")).build();
             } else {
-                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
 
@@ -266,20 +401,21 @@ public class TaskService {
     @Path("/")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deleteAllTasks(@HeaderParam("token") String token) {
-        if (userBean.isValidUserByToken(token)) {
-            String role = userBean.getUserRole(token);
+    public Response deleteAllTasks() {
+        if (principalBean.isAuthenticated()) {
+            String role = principalBean.getRole();
             if (role.equals("po")) {
-                if (taskBean.deleteAllTasks()) {
-                    return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("All tasks are deleted"))).build();
-                } else {
-                    return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Cannot delete all tasks"))).build();
-                }
+                int deleted = taskBean.deleteAllTasks();
+                return Response.status(200).entity(new ResponseMessage("All tasks are deleted", deleted)).build();
             } else {
-                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Forbidden"))).build();
+                return Response.status(403).entity(new ResponseMessage("Forbidden")).build();
             }
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
 }
@@ -0,0 +1,41 @@
+package aor.paj.service;
+
+//Formats of GET /export and POST /import, chosen with ?format=
+enum TransferFormat {
+    //One JSON object per line
+    NDJSON("ndjson", "application/x-ndjson"),
+    //A header line with the column names, then one line per row
+    CSV("csv", "text/csv");
+
+    static final String NDJSON_TYPE = "application/x-ndjson";
+    static final String CSV_TYPE = "text/csv";
+
+    private final String name;
+    private final String mediaType;
+
+    TransferFormat(String name, String mediaType) {
+        this.name = name;
+        this.mediaType = mediaType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    //Function that returns the format of the query parameter, NDJSON when there is none, or null when it is unknown
+    static TransferFormat fromParam(String format) {
+        if (format == null || format.isEmpty()) {
+            return NDJSON;
+        }
+        for (TransferFormat transferFormat : values()) {
+            if (transferFormat.name.equalsIgnoreCase(format)) {
+                return transferFormat;
+            }
+        }
+        return null;
+    }
+}
@@ -2,21 +2,32 @@ package aor.paj.service;
 
 import java.util.List;
 
+import aor.paj.bean.AsyncExecutorBean;
+import aor.paj.bean.CollectionVersionBean;
+import aor.paj.bean.LoginThrottleBean;
+import aor.paj.bean.PrincipalBean;
 import aor.paj.bean.UserBean;
 import aor.paj.dto.*;
 import aor.paj.entity.UserEntity;
 import aor.paj.responses.ResponseMessage;
-import aor.paj.utils.JsonUtils;
+import aor.paj.utils.ExecutorPool;
+import aor.paj.utils.VersionedCollection;
 import aor.paj.validator.UserValidator;
 import jakarta.inject.Inject;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 //@Path("/user")
@@ -27,54 +38,70 @@ public class UserService {
     @Inject
     UserBean userBean;
 
+    @Inject
+    PrincipalBean principalBean;
+
+    @Inject
+    CollectionVersionBean collectionVersionBean;
+
+    @Inject
+    AsyncExecutorBean asyncExecutorBean;
+
+    @Inject
+    LoginThrottleBean loginThrottleBean;
+
     //Service that receives a user object and adds it to the list of users
     @POST
 //    @Path("/add")
     @Path("/")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response addUser(UserDto u, @HeaderParam("token") String token, @HeaderParam("role") String roleNewUser) {
+    public CompletionStage<Response> addUser(UserDto u, @HeaderParam("role") String roleNewUser) {
         // Check if any parameter is null or blank
         if (UserValidator.isNullorBlank(u)) {
-            return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("One or more parameters are null or blank"))).build();
+            return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("One or more parameters are null or blank")).build());
         }
 
         // Validate email format
         if (!UserValidator.isValidEmail(u.getEmail())) {
-            return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid email format"))).build();
+            return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("Invalid email format")).build());
         }
 
         // Validate phone number format
         if (!UserValidator.isValidPhoneNumber(u.getPhone())) {
-            return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid phone number format"))).build();
+            return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("Invalid phone number format")).build());
         }
 
         // Validate URL format
         if (!UserValidator.isValidURL(u.getPhotoURL())) {
-            return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid URL format"))).build();
+            return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("Invalid URL format")).build());
         }
 
-        // Check if username or email already exists
-        if (userBean.userExists(u)) {
-            return Response.status(409).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid Username or Email"))).build();
-        }
+        // Read the session here, the request scope is not active on the hashing pool
+        boolean isPO = roleNewUser != null && principalBean.isAuthenticated() && principalBean.getRole().equals("po");
+        boolean asPO = roleNewUser != null && principalBean.isAuthenticated();
 
-        // Check if the user is a PO & if the token is valid and create the new user
-        String userToken="";
-        userToken = token;
-        if(userToken!=null && roleNewUser != null && userBean.isValidUserByToken(userToken)){
-            String role = userBean.getUserByToken(userToken).getRole();
-            if(role.equals("po")){
-                userBean.addUserPO(u, roleNewUser);
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("A new user is created")).toString()).build();
+        // The password is hashed with BCrypt, so the user is created on the hashing pool
+        return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.HASHING, () -> {
+            // Check if username or email already exists
+            if (userBean.userExists(u)) {
+                return Response.status(409).entity(new ResponseMessage("Invalid Username or Email")).build();
             }
 
-        }else{
-        // If all checks pass, add the user
-            userBean.addUser(u);
-            return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("A new user is created"))).build();
-        }
-        return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized")).toString()).build();
+            // Check if the user is a PO & if the token is valid and create the new user
+            if(asPO){
+                if(isPO){
+                    userBean.addUserPO(u, roleNewUser);
+                    return Response.status(200).entity(new ResponseMessage("A new user is created")).build();
+                }
+
+            }else{
+            // If all checks pass, add the user
+                userBean.addUser(u);
+                return Response.status(200).entity(new ResponseMessage("A new user is created")).build();
+            }
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        });
     }
 
 
@@ -83,76 +110,93 @@ public class UserService {
     @Path("/login")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response login(@HeaderParam("username") String username, @HeaderParam("password") String password) {
-        String token = userBean.login(username, password);
-        if (token != null) {
-            if(userBean.getUserByUsername(username).isActive()){
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new TokenAndRoleDto(token, userBean.getUserByUsername(username).getRole(), userBean.getUserByToken(token).getUsername()))).build();
-            }else{
-                return Response.status(403).entity(JsonUtils.convertObjectToJson(new ResponseMessage("User is not active")).toString()).build();
-            }
+    public CompletionStage<Response> login(@HeaderParam("username") String username, @HeaderParam("password") String password,
+                                           @Context HttpServletRequest httpRequest) {
+        //Checked before the database and BCrypt, so too many attempts cost nothing but this
+        long waitMillis = loginThrottleBean.tryAcquire(username, httpRequest.getRemoteAddr());
+        if (waitMillis > 0) {
+            return AsyncHandlers.done(Response.status(429).entity(new ResponseMessage("Too many login attempts, try again later"))
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString((waitMillis + 999) / 1000)).build());
         }
-        return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Login Failed"))).build();
+        //BCrypt is slow on purpose, so the password is checked on the hashing pool
+        return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.HASHING, () -> {
+            String token = userBean.login(username, password);
+            if (token != null) {
+                loginThrottleBean.reset(username);
+                SessionDto session = userBean.getSession(token);
+                if(session.isActive()){
+                    return Response.status(200).entity(new TokenAndRoleDto(token, session.getRole(), session.getUsername())).build();
+                }else{
+                    return Response.status(403).entity(new ResponseMessage("User is not active")).build();
+                }
+            }
+            return Response.status(401).entity(new ResponseMessage("Login Failed")).build();
+        });
     }
 
     @POST
     @Path("/logout")
     @Produces(MediaType.APPLICATION_JSON)
     public Response logout(@HeaderParam("token") String token) {
-        if (userBean.isValidUserByToken(token)) {
+        if (principalBean.isAuthenticated()) {
             userBean.logout(token);
-            return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("User is logged out")).toString()).build();
+            return Response.status(200).entity(new ResponseMessage("User is logged out")).build();
         }
-        return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized")).toString()).build();
+        return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
     }
 
     @GET
 //    @Path("/all")
     @Path("/")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getAllUsers(@HeaderParam("token") String token) {
+    public CompletionStage<Response> getAllUsers(@HeaderParam("token") String token, @Context Request request) {
 
         if (token == null || token.isEmpty()) {
-            return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid token"))).build();
+            return AsyncHandlers.done(Response.status(400).entity(new ResponseMessage("Invalid token")).build());
         }
 
-        if (!userBean.isValidUserByToken(token)) {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+        if (!principalBean.isAuthenticated()) {
+            return AsyncHandlers.done(Response.status(401).entity(new ResponseMessage("Unauthorized")).build());
         }
 
-        List<UserDto> userDtos = userBean.getAllUsersDB();
-
-        if (userDtos == null || userDtos.isEmpty()) {
-            return Response.status(404).entity(JsonUtils.convertObjectToJson(new ResponseMessage("No users found"))).build();
+        EntityTag tag = new EntityTag(collectionVersionBean.getTag(VersionedCollection.USERS));
+        Response notModified = ConditionalGet.notModified(request, tag);
+        if (notModified != null) {
+            return AsyncHandlers.done(notModified);
         }
 
-        return Response.status(200).entity(userDtos).build();
+        return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.DB, () -> {
+            if (!userBean.hasUsers()) {
+                return Response.status(404).entity(new ResponseMessage("No users found")).build();
+            }
+            return Response.status(200).entity(new JsonArrayOutput<UserDto>(userBean::streamAllUsers)).tag(tag).cacheControl(ConditionalGet.REVALIDATE).build();
+        });
     }
     //Service that receives the token to validate and sends the userPartialDto object
     @GET
 //    @Path("/getPartial")
     @Path("{username}/partial")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getUserPartial(@HeaderParam("token") String token, @PathParam("username") String username) {
-        if (userBean.isValidUserByToken(token)) {
-            UserDto userDto = userBean.getUserByToken(token);
+    public Response getUserPartial(@PathParam("username") String username) {
+        if (principalBean.isAuthenticated()) {
+            UserDto userDto = userBean.getUserByUsername(principalBean.getUsername());
             UserPartialDto userPartialDTO = userBean.mapUserToUserPartialDTO(userDto);
             return Response.status(200).entity(userPartialDTO).build();
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
 
-    //Service that receives a token and a username and sends the photoURL of the usersame
+    //Service that receives a token and a username and sends the first name and photoURL of the user
     @GET
     @Path("{username}/photo")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getPhoto(@HeaderParam("token") String token, @PathParam("username") String username) {
-        if (userBean.isValidUserByToken(token)) {
+    public Response getPhoto(@PathParam("username") String username) {
+        if (principalBean.isAuthenticated()) {
             UserDto userDto = userBean.getUserByUsername(username);
-            return Response.status(200).entity(JsonUtils.convertObjectToJson((userDto.getPhotoURL()))).build();
+            return Response.status(200).entity(userBean.mapUserToUserPartialDTO(userDto)).build();
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
 
@@ -160,15 +204,20 @@ public class UserService {
     @GET
     @Path("/owners") //users that own tasks
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getUsersOwners(@HeaderParam("token") String token) {
-        if (userBean.isValidUserByToken(token)) {
+    public Response getUsersOwners(@Context Request request) {
+        if (principalBean.isAuthenticated()) {
+            EntityTag tag = new EntityTag(collectionVersionBean.getTag(VersionedCollection.TASKS, VersionedCollection.USERS));
+            Response notModified = ConditionalGet.notModified(request, tag);
+            if (notModified != null) {
+                return notModified;
+            }
             List<UserDto> userDtos = userBean.getUsersOwners();
             if (userDtos == null || userDtos.isEmpty()) {
-                return Response.status(404).entity(JsonUtils.convertObjectToJson(new ResponseMessage("No users found"))).build();
+                return Response.status(404).entity(new ResponseMessage("No users found")).build();
             }
-            return Response.status(200).entity(userDtos).build();
+            return Response.status(200).entity(userDtos).tag(tag).cacheControl(ConditionalGet.REVALIDATE).build();
         } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }
     }
 
@@ -176,28 +225,28 @@ public class UserService {
     @GET
     @Path("/{username}/permissions/{taskId}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response hasPermissionToEdit(@HeaderParam("token") String token, @PathParam("username") String username, @PathParam("taskId") int taskId) {
-        if (userBean.isValidUserByToken(token)) {
-            if (userBean.hasPermissionToEdit(token, taskId)) {
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("User has permission to edit"))).build();
+    public Response hasPermissionToEdit(@PathParam("username") String username, @PathParam("taskId") int taskId) {
+        if (principalBean.isAuthenticated()) {
+            if (userBean.hasPermissionToEdit(principalBean.getSession(), taskId)) {
+                return Response.status(200).entity(new ResponseMessage("User has permission to edit")).build();
             } else {
-                return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("You dont have permission to edit this task."))).build();
+                return Response.status(401).entity(new ResponseMessage("You dont have permission to edit this task.")).build();
             }
 
         }
-        return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+        return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
     }
 
     //Service that receives username and password and sends the user object without the password
     @GET
     @Path("/{selectedUser}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getUserDetails(@HeaderParam("token") String token, @PathParam("selectedUser") String selectedUser) {
+    public Response getUserDetails(@PathParam("selectedUser") String selectedUser) {
 //        ~
-        if (!userBean.isValidUserByToken(token)) {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+        if (!principalBean.isAuthenticated()) {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
 
-        } else if (userBean.isValidUserByToken(token) && userBean.getUserByToken(token).getRole().equals("po") || userBean.getUserByToken(token).getUsername().equals(selectedUser)) {
+        } else if (principalBean.getRole().equals("po") || principalBean.getUsername().equals(selectedUser)) {
                 UserDto userDto = userBean.getUserByUsername(selectedUser);
                 UserDetailsDto userDetails = new UserDetailsDto(
                         userDto.getUsername(),
@@ -211,31 +260,30 @@ public class UserService {
                 return Response.status(200).entity(userDetails).build();
 
             } else {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
         }}
     @PUT
     @Path("/{selectedUser}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response updateUser(UserUpdateDto u, @HeaderParam("token") String token, @PathParam("selectedUser") String selectedUser) {
-        if (!userBean.isValidUserByToken(token)) {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
-        } else if (userBean.isValidUserByToken(token) && userBean.getUserByToken(token).getRole().equals("po") || userBean.getUserByToken(token).getUsername().equals(selectedUser)) {
+    public Response updateUser(UserUpdateDto u, @PathParam("selectedUser") String selectedUser) {
+        if (!principalBean.isAuthenticated()) {
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        } else if (principalBean.getRole().equals("po") || principalBean.getUsername().equals(selectedUser)) {
             if (!UserValidator.isValidEmail(u.getEmail())) {
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid email format"))).build();
-            } else if (!u.getEmail().equals(userBean.getUserByUsername(selectedUser).getEmail()) && UserValidator.emailExists(userBean.getAllUsersDB(),u.getEmail())
-                    && (!userBean.getUserByToken(token).getEmail().equals(u.getEmail()) || !userBean.getUserByUsername(selectedUser).getEmail().equals(u.getEmail()))) {
-                return Response.status(409).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Email already exists"))).build();
+                return Response.status(400).entity(new ResponseMessage("Invalid email format")).build();
+            } else if (!u.getEmail().equals(userBean.getUserByUsername(selectedUser).getEmail()) && UserValidator.emailExists(userBean.getAllUsersDB(),u.getEmail())) {
+                return Response.status(409).entity(new ResponseMessage("Email already exists")).build();
             } else if (!UserValidator.isValidPhoneNumber(u.getPhone())) {
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid phone number format"))).build();
+                return Response.status(400).entity(new ResponseMessage("Invalid phone number format")).build();
             } else if (!UserValidator.isValidURL(u.getPhotoURL())) {
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid URL format"))).build();
+                return Response.status(400).entity(new ResponseMessage("Invalid URL format")).build();
             } else {
                 userBean.updateUser(u);
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("User is updated")).toString()).build();
+                return Response.status(200).entity(new ResponseMessage("User is updated")).build();
             }
         }
-        return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
+        return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
     }
 
 
@@ -244,68 +292,72 @@ public class UserService {
     @Path("/{username}/password")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response updatePassword(UserPasswordUpdateDto u, @PathParam("username") @HeaderParam("token") String token) {
-        if (!userBean.isValidUserByToken(token)) {
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
-        }else if(userBean.isValidUserByToken(token)){
-            boolean updateTry = userBean.updatePassword(u, token);
+    public CompletionStage<Response> updatePassword(UserPasswordUpdateDto u) {
+        if (!principalBean.isAuthenticated()) {
+            return AsyncHandlers.done(Response.status(401).entity(new ResponseMessage("Unauthorized")).build());
+        }
+        //The session is read here, the request scope is not active on the hashing pool
+        SessionDto session = principalBean.getSession();
+        return AsyncHandlers.dispatch(asyncExecutorBean, ExecutorPool.HASHING, () -> {
+            boolean updateTry = userBean.updatePassword(u, session);
             if(!updateTry){
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Old password is incorrect"))).build();
+                return Response.status(400).entity(new ResponseMessage("Old password is incorrect")).build();
             }else{
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Password is updated")).toString()).build();
+                return Response.status(200).entity(new ResponseMessage("Password is updated")).build();
             }
-        }
-        return Response .status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid Parameters")).toString()).build();
+        });
     }
 
     @PUT
     @Path("/{username}/status")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response changeStatus(@HeaderParam("token") String token, @PathParam("username") String username, UserStatusUpdateDto userStatusUpdateDto) {
-        if(!userBean.isValidUserByToken(token) || !userBean.getUserByToken(token).getRole().equals("po")){
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
-        } else if(userBean.getUserByToken(token).getRole().equals("po")){
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response changeStatus(@PathParam("username") String username, UserStatusUpdateDto userStatusUpdateDto) {
+        if(!principalBean.isAuthenticated() || !principalBean.getRole().equals("po")){
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        } else if(principalBean.getRole().equals("po")){
             if(userBean.changeStatus(username, userStatusUpdateDto.isActive())){
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Status changed")).toString()).build();
+                return Response.status(200).entity(new ResponseMessage("Status changed")).build();
             } else {
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Status not changed")).toString()).build();
+                return Response.status(400).entity(new ResponseMessage("Status not changed")).build();
             }
         }
-        return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid Parameters")).toString()).build();
+        return Response.status(400).entity(new ResponseMessage("Invalid Parameters")).build();
     }
 
 
     @DELETE
     @Path("/{selectedUser}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deleteUser(@HeaderParam("token") String token, @PathParam("selectedUser") String selectedUser) {
-        if(!userBean.isValidUserByToken(token) && !userBean.getUserByToken(token).getRole().equals("po")){
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
-        }else if(userBean.getUserByToken(token).getRole().equals("po")){
+    public Response deleteUser(@PathParam("selectedUser") String selectedUser) {
+        if(!principalBean.isAuthenticated()){
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }else if(principalBean.getRole().equals("po")){
             if(userBean.deleteUser(selectedUser)){
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("User deleted")).toString()).build();
+                return Response.status(200).entity(new ResponseMessage("User deleted")).build();
             }else{
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("User not deleted")).toString()).build();
+                return Response.status(400).entity(new ResponseMessage("User not deleted")).build();
             }
         }
-        return Response .status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid Parameters")).toString()).build();
+        return Response .status(400).entity(new ResponseMessage("Invalid Parameters")).build();
     }
 
     //Delete all tasks of a user
     @DELETE
     @Path("/{selectedUser}/tasks")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response deleteTasks(@HeaderParam("token") String token, @PathParam("selectedUser") String selectedUser) {
-        if(!userBean.isValidUserByToken(token) && !userBean.getUserByToken(token).getRole().equals("po")){
-            return Response.status(401).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Unauthorized"))).build();
-        }else if(userBean.getUserByToken(token).getRole().equals("po")){
-            if(userBean.deleteTasks(selectedUser)){
-                return Response.status(200).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Tasks deleted")).toString()).build();
+    public Response deleteTasks(@PathParam("selectedUser") String selectedUser) {
+        if(!principalBean.isAuthenticated()){
+            return Response.status(401).entity(new ResponseMessage("Unauthorized")).build();
+        }else if(principalBean.getRole().equals("po")){
+            Integer deleted = userBean.deleteTasks(selectedUser);
+            if(deleted != null){
+                return Response.status(200).entity(new ResponseMessage("Tasks deleted", deleted)).build();
             }else{
-                return Response.status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Tasks not deleted")).toString()).build();
+                return Response.status(400).entity(new ResponseMessage("Tasks not deleted")).build();
             }
         }
-        return Response .status(400).entity(JsonUtils.convertObjectToJson(new ResponseMessage("Invalid Parameters")).toString()).build();
+        return Response .status(400).entity(new ResponseMessage("Invalid Parameters")).build();
     }
 
 }
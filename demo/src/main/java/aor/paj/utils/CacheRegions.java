@@ -0,0 +1,16 @@
+package aor.paj.utils;
+
+//Names of the Hibernate second-level cache regions, configured in application.conf
+public final class CacheRegions {
+
+    public static final String CATEGORY = "category";
+    public static final String USER = "user";
+    public static final String CATEGORY_QUERIES = "category-queries";
+    public static final String USER_QUERIES = "user-queries";
+
+    public static final String[] ENTITY_REGIONS = {CATEGORY, USER};
+    public static final String[] QUERY_REGIONS = {CATEGORY_QUERIES, USER_QUERIES};
+
+    private CacheRegions() {
+    }
+}
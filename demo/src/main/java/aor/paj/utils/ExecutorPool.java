@@ -0,0 +1,18 @@
+package aor.paj.utils;
+
+public enum ExecutorPool {
+    //BCrypt and the other work that keeps a CPU busy
+    HASHING("hashing"),
+    //Reads that wait on the database
+    DB("db");
+
+    private final String name;
+
+    ExecutorPool(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,21 @@
+package aor.paj.utils;
+
+public enum IdSequence {
+    TASK("task", "TaskEntity"), USER("user", "UserEntity"), CATEGORY("category", "CategoryEntity");
+
+    private final String name;
+    private final String entityName;
+
+    IdSequence(String name, String entityName) {
+        this.name = name;
+        this.entityName = entityName;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+}
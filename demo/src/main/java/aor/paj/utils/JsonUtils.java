@@ -1,23 +1,18 @@
 package aor.paj.utils;
 
-import aor.paj.dto.UserDto;
 import jakarta.json.bind.Jsonb;
 import jakarta.json.bind.JsonbBuilder;
 import jakarta.json.bind.JsonbConfig;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
 
 public class JsonUtils {
 
-    private static JsonbConfig config = new JsonbConfig().withFormatting(true);
-    private static Jsonb jsonb = JsonbBuilder.create(config);
-    private static final String filename = "users.json";
-    public static String convertObjectToJson(Object object) {
-        return jsonb.toJson(object);
+    //Compact output, the responses are read by the frontend and not by people. The Jsonb instance is thread safe and
+    //keeps the serializers of each class it has already seen, so it is built once and shared by every response
+    private static final JsonbConfig config = new JsonbConfig().withFormatting(false);
+    private static final Jsonb jsonb = JsonbBuilder.create(config);
+
+    public static Jsonb getJsonb() {
+        return jsonb;
     }
 
 }
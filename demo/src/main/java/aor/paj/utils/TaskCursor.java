@@ -0,0 +1,64 @@
+package aor.paj.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+//Position of a task in the board order (priority DESC, initialDate, finalDate, id), sent to the client as an opaque string.
+//The encoded form is "1|priority|initialDate|finalDate|id" in url safe base64, the leading 1 is the format version
+public class TaskCursor {
+
+    //Value of TaskEntity.finalDateSort for tasks without final date, so they are sorted last
+    public static final LocalDate NO_FINAL_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final String VERSION = "1";
+
+    private final int priority;
+    private final LocalDate initialDate;
+    private final LocalDate finalDate;
+    private final int id;
+
+    public TaskCursor(int priority, LocalDate initialDate, LocalDate finalDate, int id) {
+        this.priority = priority;
+        this.initialDate = initialDate;
+        this.finalDate = finalDate != null ? finalDate : NO_FINAL_DATE;
+        this.id = id;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public LocalDate getInitialDate() {
+        return initialDate;
+    }
+
+    public LocalDate getFinalDate() {
+        return finalDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = VERSION + "|" + priority + "|" + initialDate + "|" + finalDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //Function that decodes a cursor sent by the client, throws IllegalArgumentException if it was not produced by encode
+    public static TaskCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 5 || !parts[0].equals(VERSION)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new TaskCursor(Integer.parseInt(parts[1]), LocalDate.parse(parts[2]), LocalDate.parse(parts[3]),
+                    Integer.parseInt(parts[4]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
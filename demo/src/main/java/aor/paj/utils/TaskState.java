@@ -0,0 +1,67 @@
+package aor.paj.utils;
+
+import aor.paj.entity.TaskEntity;
+
+//What TaskCounterBean needs to know of one task, the category, owner, status and active it is counted under, plus the
+//version read with them. Immutable, a change of the task gives a new one
+public class TaskState {
+
+    private final int id;
+    private final int version;
+    private final int categoryId;
+    private final int ownerId;
+    private final int status;
+    private final boolean active;
+
+    //Constructor used by the JPQL projection of Task.findStates
+    public TaskState(int id, int version, int categoryId, int ownerId, int status, boolean active) {
+        this.id = id;
+        this.version = version;
+        this.categoryId = categoryId;
+        this.ownerId = ownerId;
+        this.status = status;
+        this.active = active;
+    }
+
+    public static TaskState of(TaskEntity taskEntity) {
+        return new TaskState(taskEntity.getId(), taskEntity.getVersion(),
+                taskEntity.getCategory() != null ? taskEntity.getCategory().getId() : 0,
+                taskEntity.getOwner() != null ? taskEntity.getOwner().getId() : 0,
+                taskEntity.getStatus() != null ? taskEntity.getStatus() : 0,
+                taskEntity.getActive() != null && taskEntity.getActive());
+    }
+
+    //Function that returns the state of the task after a bulk restore or desactivation of TaskDao
+    public TaskState withActive(boolean active) {
+        return new TaskState(id, version + 1, categoryId, ownerId, status, active);
+    }
+
+    //Function that returns the state of the task after TaskDao.changeTasksOwner
+    public TaskState withOwner(int ownerId) {
+        return new TaskState(id, version + 1, categoryId, ownerId, status, active);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -0,0 +1,15 @@
+package aor.paj.utils;
+
+public enum VersionedCollection {
+    TASKS("tasks"), CATEGORIES("categories"), USERS("users");
+
+    private final String name;
+
+    VersionedCollection(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
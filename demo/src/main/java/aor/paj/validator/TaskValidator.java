@@ -12,17 +12,19 @@ public class TaskValidator {
 
     //function that verifys if atributes of a new task are not null or empty, then verifys if initial date is before final date
     public static boolean isValidTask(TaskDto t) {
+        return isValidTaskFields(t) && isValidCategory(t.getCategory());
+    }
+
+    //function that verifys the atributes of a new task without the category, for the callers that look the category up themselves
+    public static boolean isValidTaskFields(TaskDto t) {
         if (t != null) {
             if (t.getTitle() != null && !t.getTitle().isEmpty()) {
                 if (t.getDescription() != null && !t.getDescription().isEmpty()) {
                     if (t.getPriority() != null && t.getPriority() != 0) {
                         if (isValidDates(t)) {
                             if (t.getCategory() != null && !t.getCategory().isEmpty()) {
-                                if (isValidCategory(t.getCategory())) {
-                                    return true;
-                                }
+                                return true;
                             }
-
                         }
                     }
                 }
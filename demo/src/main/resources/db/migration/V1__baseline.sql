@@ -0,0 +1,49 @@
+-- Schema as it was created by hibernate.hbm2ddl.auto=update before the migrations existed.
+-- Databases that already have these tables are baselined at this version and skip it.
+
+create table user (
+    id integer not null,
+    active bit not null,
+    email varchar(255) not null,
+    firstname varchar(255) not null,
+    lastname varchar(255) not null,
+    password varchar(255) not null,
+    phone varchar(255) not null,
+    photoURL varchar(255) not null,
+    role varchar(255) not null,
+    token varchar(255),
+    username varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table category (
+    id integer not null,
+    description varchar(255) not null,
+    title varchar(255) not null,
+    owner_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table task (
+    id integer not null,
+    active bit not null,
+    description varchar(255) not null,
+    finalDate date,
+    initialDate date not null,
+    priority integer not null,
+    status integer not null,
+    title varchar(255) not null,
+    category_id integer not null,
+    owner_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table category add constraint UK_lnmf77qvjnr2lmyxrrydom9hd unique (title);
+alter table task add constraint UK_20c7byw48jcthxnvt67bbvijq unique (title);
+alter table user add constraint UK_ob8kqyqqgmefl0aco34akdtpe unique (email);
+alter table user add constraint UK_mtqx5podr73c7h25y9qqu96x2 unique (token);
+alter table user add constraint UK_sb8bbouer5wak8vyiiy4pf2bx unique (username);
+
+alter table category add constraint FK7j5dlrhthv9y4pee8ftyd4df2 foreign key (owner_id) references user (id);
+alter table task add constraint FKkjb4pwpo8oqc8fvkgbmiitsu9 foreign key (category_id) references category (id);
+alter table task add constraint FKjspifx5hvv1mc7ybu4qp2wyns foreign key (owner_id) references user (id);
@@ -0,0 +1,13 @@
+-- Sort key of the board that never is null, so the order priority DESC, initialDate, finalDate (tasks without
+-- final date last) can be read from an index instead of sorting on COALESCE(finalDate, '9999-12-31').
+-- TaskEntity keeps it equal to finalDate, or 9999-12-31 when there is none.
+alter table task add column finalDateSort date not null default '9999-12-31';
+update task set finalDateSort = finalDate where finalDate is not null;
+
+-- One index per access path of the Task.* named queries, each ending in the board order so no sort is needed.
+-- The id at the end matches the keyset pagination of GET /tasks.
+create index idx_task_board on task (active, priority desc, initialDate, finalDateSort, id);
+create index idx_task_status_board on task (active, status, priority desc, initialDate, finalDateSort, id);
+create index idx_task_owner_board on task (owner_id, active, priority desc, initialDate, finalDateSort, id);
+create index idx_task_category_board on task (category_id, active, priority desc, initialDate, finalDateSort, id);
+create index idx_task_category_owner_status on task (category_id, owner_id, status, active);
@@ -0,0 +1,8 @@
+-- Blocks of ids of IdBlockDao. Not part of V1, which databases created before the migrations skip when they are
+-- baselined. Those databases may already have the table, made by hibernate.hbm2ddl.auto=update, so it is only created
+-- when missing. It runs before V4__seed_id_blocks.sql fills it.
+create table if not exists id_block (
+    name varchar(255) not null,
+    next_id integer not null,
+    primary key (name)
+) engine=InnoDB;
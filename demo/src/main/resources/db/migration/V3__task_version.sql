@@ -0,0 +1,3 @@
+-- Version of each task for optimistic locking, see TaskEntity.version. Every change of a task adds one to it, so a
+-- change based on an older read can be refused with a conditional UPDATE instead of overwriting the newer one.
+alter table task add column version integer not null default 0;
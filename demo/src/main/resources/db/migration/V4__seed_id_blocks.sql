@@ -0,0 +1,10 @@
+-- One id_block row for each IdSequence, starting after the highest id in use, so IdBlockDao.allocateBlock always finds
+-- a row to lock. Without it two nodes that both miss the row under PESSIMISTIC_WRITE would both insert it, and one of
+-- them would fail on the primary key. The rows made before by IdBlockDao are kept; the check is outside the max(), which
+-- always returns a row.
+insert into id_block (name, next_id) select 'task', next_id from (select coalesce(max(id), 0) + 1 as next_id from task) max_id
+    where not exists (select 1 from id_block where name = 'task');
+insert into id_block (name, next_id) select 'user', next_id from (select coalesce(max(id), 0) + 1 as next_id from user) max_id
+    where not exists (select 1 from id_block where name = 'user');
+insert into id_block (name, next_id) select 'category', next_id from (select coalesce(max(id), 0) + 1 as next_id from category) max_id
+    where not exists (select 1 from id_block where name = 'category');
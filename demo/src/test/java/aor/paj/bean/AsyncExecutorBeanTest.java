@@ -0,0 +1,170 @@
+package aor.paj.bean;
+
+import aor.paj.dto.ExecutorStatsDto;
+import aor.paj.utils.ExecutorPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncExecutorBeanTest {
+
+    private final AsyncExecutorBean asyncExecutorBean = new AsyncExecutorBean();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        asyncExecutorBean.shutdown();
+    }
+
+    private String blocked() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    @Test
+    void testSupplyReturnsResult() throws Exception {
+        // Given: a pool with one thread
+        asyncExecutorBean.addPool(ExecutorPool.DB, 1, 1, 5_000);
+
+        // When: a task is run on it
+        String result = asyncExecutorBean.supply(ExecutorPool.DB, () -> "result").get(5, TimeUnit.SECONDS);
+
+        // Then: the result is returned and counted
+        assertEquals("result", result);
+        ExecutorStatsDto stats = asyncExecutorBean.getStats().get(0);
+        assertEquals("db", stats.getName());
+        assertEquals(1, stats.getSubmitted());
+        assertEquals(1, stats.getCompleted());
+    }
+
+    @Test
+    void testSupplyRejectsWhenQueueIsFull() {
+        // Given: a pool with one busy thread and a full queue of one
+        asyncExecutorBean.addPool(ExecutorPool.HASHING, 1, 1, 5_000);
+        asyncExecutorBean.supply(ExecutorPool.HASHING, this::blocked);
+        asyncExecutorBean.supply(ExecutorPool.HASHING, this::blocked);
+
+        // When: one more task is submitted
+        CompletableFuture<String> rejected = asyncExecutorBean.supply(ExecutorPool.HASHING, () -> "late");
+
+        // Then: it fails at once and is counted as rejected
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1, asyncExecutorBean.getStats().get(0).getRejected());
+    }
+
+    @Test
+    void testSupplyTimesOutOnlyWhileQueued() throws Exception {
+        // Given: a pool with a 50 millisecond timeout whose only thread is busy longer than that
+        asyncExecutorBean.addPool(ExecutorPool.DB, 1, 1, 50);
+        CompletableFuture<String> running = asyncExecutorBean.supply(ExecutorPool.DB, this::blocked);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // When: another task waits in the queue past the timeout
+        CompletableFuture<String> queued = asyncExecutorBean.supply(ExecutorPool.DB, () -> {
+            ran.set(true);
+            return "late";
+        });
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then: the running task still finishes, the queued one fails with a timeout without running
+        assertEquals("done", running.get(5, TimeUnit.SECONDS));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertFalse(ran.get());
+        ExecutorStatsDto stats = asyncExecutorBean.getStats().get(0);
+        assertEquals(1, stats.getCompleted());
+        assertEquals(1, stats.getTimedOut());
+    }
+
+    @Test
+    void testSupplyCountsFailures() {
+        // Given: a pool with one thread
+        asyncExecutorBean.addPool(ExecutorPool.DB, 1, 1, 5_000);
+
+        // When: the task throws
+        CompletableFuture<String> failing = asyncExecutorBean.supply(ExecutorPool.DB, () -> {
+            throw new IllegalStateException("broken");
+        });
+
+        // Then: the error reaches the stage and is counted as failed, not completed
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        ExecutorStatsDto stats = asyncExecutorBean.getStats().get(0);
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getCompleted());
+    }
+
+    @Test
+    void testPerTaskPoolRunsAsManyTasksAsConnections() throws Exception {
+        // Given: a thread for each task, two connections and room for one task waiting for a connection
+        asyncExecutorBean.addPerTaskPool(ExecutorPool.DB, Executors.newCachedThreadPool(), 2, 1, 5_000, false);
+        CountDownLatch started = new CountDownLatch(2);
+        Supplier<String> holdsConnection = () -> {
+            started.countDown();
+            return blocked();
+        };
+        CompletableFuture<String> first = asyncExecutorBean.supply(ExecutorPool.DB, holdsConnection);
+        CompletableFuture<String> second = asyncExecutorBean.supply(ExecutorPool.DB, holdsConnection);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<String> waiting = asyncExecutorBean.supply(ExecutorPool.DB, () -> {
+            ran.set(true);
+            return "third";
+        });
+
+        // When: one more task is submitted while the connections are taken
+        CompletableFuture<String> rejected = asyncExecutorBean.supply(ExecutorPool.DB, () -> "late");
+
+        // Then: only two tasks run, the third waits for a connection and the fourth is rejected at once
+        Thread.sleep(100);
+        assertFalse(ran.get());
+        ExecutorStatsDto stats = asyncExecutorBean.getStats().get(0);
+        assertEquals(2, stats.getActive());
+        assertEquals(1, stats.getQueued());
+        ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+
+        // And: the waiting task runs once a connection is free
+        release.countDown();
+        assertEquals("done", first.get(5, TimeUnit.SECONDS));
+        assertEquals("done", second.get(5, TimeUnit.SECONDS));
+        assertEquals("third", waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testVirtualThreadsOnlyWhenTheJvmHasThem() throws Exception {
+        // Given: virtual threads are asked for
+        System.setProperty("aor.paj.executor.virtualThreads", "true");
+        try {
+            asyncExecutorBean.init();
+        } finally {
+            System.clearProperty("aor.paj.executor.virtualThreads");
+        }
+
+        // Then: the DB pool uses them from Java 21 on, the hashing pool never does, and both still run tasks
+        boolean supported = Runtime.version().feature() >= 21;
+        for (ExecutorStatsDto stats : asyncExecutorBean.getStats()) {
+            assertEquals(supported && stats.getName().equals("db"), stats.isVirtual());
+        }
+        assertEquals("result", asyncExecutorBean.supply(ExecutorPool.DB, () -> "result").get(5, TimeUnit.SECONDS));
+    }
+}
@@ -2,7 +2,6 @@ package aor.paj.bean;
 
 import aor.paj.bean.CategoryBean;
 import aor.paj.dao.CategoryDao;
-import aor.paj.dao.TaskDao;
 import aor.paj.dao.UserDao;
 import aor.paj.dto.CategoryDto;
 import aor.paj.entity.CategoryEntity;
@@ -15,10 +14,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,16 +29,46 @@ class CategoryBeanTest {
     private CategoryDao categoryDao; // Mock the CategoryDao
 
     @Mock
-    private TaskDao taskDao; // Mock the TaskDao
+    private TaskCounterBean taskCounterBean; // Mock the counters of tasks
 
     @Mock
     private UserDao userDao; // Mock the UserDao
 
+    @Mock
+    private CategoryCatalogueBean categoryCatalogueBean; // Mock the catalogue of categories
+
+    @Mock
+    private CollectionVersionBean collectionVersionBean;
+
     @InjectMocks
     private CategoryBean categoryBean; // Inject the mocks into CategoryBean
 
 
 
+    @Test
+    void testStreamAllCategories() {
+        // Given: the catalogue has one category
+        CategoryEntity categoryEntity = new CategoryEntity();
+        categoryEntity.setId(3);
+        categoryEntity.setTitle("testTitle");
+        UserEntity userEntity = new UserEntity();
+        userEntity.setUsername("testUser");
+        categoryEntity.setOwner(userEntity);
+        when(categoryCatalogueBean.getAll()).thenReturn(Collections.singletonList(categoryEntity));
+        when(taskCounterBean.countActiveByCategory(3)).thenReturn(2L);
+
+        // When: the categories are streamed
+        List<CategoryDto> streamed = new ArrayList<>();
+        categoryBean.streamAllCategories(streamed::add);
+
+        // Then: each category is mapped from the catalogue without going to the database
+        assertEquals(1, streamed.size());
+        assertEquals("testTitle", streamed.get(0).getTitle());
+        assertEquals("testUser", streamed.get(0).getOwner());
+        assertEquals(2, streamed.get(0).getTaskCount());
+        verifyNoInteractions(categoryDao);
+    }
+
     @Test
     void testGetAllCategories() {
         // Given: Define the test inputs
@@ -73,27 +104,44 @@ class CategoryBeanTest {
         String title = "testTitle";
 
         CategoryEntity categoryEntity = new CategoryEntity(); // Create a new CategoryEntity object
+        categoryEntity.setId(4); // Set the id of the CategoryEntity object
         categoryEntity.setTitle(title); // Set the title of the CategoryEntity object
 
         // When: Define the behavior of the mocks
-        // When categoryDao.findCategoryByTitle is called with the test title, return the test CategoryEntity
-        when(categoryDao.findCategoryByTitle(title)).thenReturn(categoryEntity);
+        // When categoryCatalogueBean.findByTitle is called with the test title, return the test CategoryEntity
+        when(categoryCatalogueBean.findByTitle(title)).thenReturn(categoryEntity);
 
-        // When taskDao.findTasksByCategory is called with the test CategoryEntity, return an empty list
-        when(taskDao.findTasksByCategory(categoryEntity)).thenReturn(Collections.emptyList());
+        // When the counters are asked for the tasks of the category, active or not, return none
+        when(taskCounterBean.countByCategory(4)).thenReturn(0L);
 
         // Then: Assert the expected results and verify the interactions with the mocks
         // Assert that categoryBean.deleteCategory returns true when called with the test title
         assertTrue(categoryBean.deleteCategory(title));
 
-        // Verify that categoryDao.findCategoryByTitle was called with the test title
-        verify(categoryDao).findCategoryByTitle(title);
+        // Verify that the category was resolved from the catalogue and not from the database
+        verify(categoryCatalogueBean).findByTitle(title);
+        verify(categoryDao, never()).findCategoryByTitle(anyString());
 
-        // Verify that taskDao.findTasksByCategory was called with the test CategoryEntity
-        verify(taskDao).findTasksByCategory(categoryEntity);
+        // Verify that the tasks were counted from the counters and not loaded
+        verify(taskCounterBean).countByCategory(4);
 
-        // Verify that categoryDao.deleteCategory was called with the test CategoryEntity
+        // Verify that categoryDao.deleteCategory was called with the test CategoryEntity and the catalogue was updated
         verify(categoryDao).deleteCategory(categoryEntity);
+        verify(categoryCatalogueBean).remove(4);
+    }
+
+    @Test
+    void testDeleteCategoryWithTasksIsRefused() {
+        // Given: a category that only has inactive tasks left, which still reference it
+        CategoryEntity categoryEntity = new CategoryEntity();
+        categoryEntity.setId(4);
+        when(categoryCatalogueBean.findById(4)).thenReturn(categoryEntity);
+        when(taskCounterBean.countByCategory(4)).thenReturn(3L);
+
+        // Then: it is not deleted
+        assertFalse(categoryBean.deleteCategory(4));
+        verify(categoryDao, never()).deleteCategory(any());
+        verify(categoryCatalogueBean, never()).remove(anyInt());
     }
 
     @Test
@@ -104,22 +152,30 @@ class CategoryBeanTest {
         categoryDto.setTitle("newTitle");
         categoryDto.setDescription("newDescription");
 
-        CategoryEntity categoryEntity = new CategoryEntity(); // Create a new CategoryEntity object
-        categoryEntity.setTitle(title); // Set the title of the CategoryEntity object
+        CategoryEntity cachedEntity = new CategoryEntity(); // Create the CategoryEntity held by the catalogue
+        cachedEntity.setId(4);
+        cachedEntity.setTitle(title);
+
+        CategoryEntity categoryEntity = new CategoryEntity(); // Create the copy of the CategoryEntity loaded to be changed
+        categoryEntity.setId(4);
+        categoryEntity.setTitle(title);
 
         // When: Define the behavior of the mocks
-        // When categoryDao.findCategoryByTitle is called with the test title, return the test CategoryEntity
-        when(categoryDao.findCategoryByTitle(title)).thenReturn(categoryEntity);
+        // When categoryCatalogueBean.findByTitle is called with the test title, return the cached CategoryEntity
+        when(categoryCatalogueBean.findByTitle(title)).thenReturn(cachedEntity);
+        // When categoryDao.find is called with its id, return the copy
+        when(categoryDao.find(4)).thenReturn(categoryEntity);
 
         // Then: Assert the expected results and verify the interactions with the mocks
         // Assert that categoryBean.updateCategory returns true when called with the test CategoryDto and title
         assertTrue(categoryBean.updateCategory(categoryDto, title));
 
-        // Verify that categoryDao.findCategoryByTitle was called with the test title
-        verify(categoryDao).findCategoryByTitle(title);
-
-        // Verify that categoryDao.merge was called with the test CategoryEntity
+        // Verify that categoryDao.merge was called with the copy, which then replaced the cached category
         verify(categoryDao).merge(categoryEntity);
+        verify(categoryCatalogueBean).put(categoryEntity);
+
+        // Assert that the category shared by the readers of the catalogue was not changed in place
+        assertEquals(title, cachedEntity.getTitle());
 
         // Assert that the title and description of the CategoryEntity were updated
         assertEquals(categoryDto.getTitle(), categoryEntity.getTitle());
@@ -134,15 +190,16 @@ class CategoryBeanTest {
         categoryDto.setDescription("testDescription");
 
         // When: Define the behavior of the mocks
-        // When categoryDao.findCategoryByTitle is called with the test title, return null
-        when(categoryDao.findCategoryByTitle(categoryDto.getTitle())).thenReturn(null);
+        // When categoryCatalogueBean.titleExists is called with the test title, return false
+        when(categoryCatalogueBean.titleExists(categoryDto.getTitle())).thenReturn(false);
 
         // Then: Assert the expected results and verify the interactions with the mocks
         // Assert that categoryBean.isValidCategory returns true when called with the test CategoryDto
         assertTrue(categoryBean.isValidCategory(categoryDto));
 
-        // Verify that categoryDao.findCategoryByTitle was called with the test title
-        verify(categoryDao).findCategoryByTitle(categoryDto.getTitle());
+        // Verify that the title was checked in the catalogue without going to the database
+        verify(categoryCatalogueBean).titleExists(categoryDto.getTitle());
+        verifyNoInteractions(categoryDao);
     }
 
     @Test
@@ -150,14 +207,14 @@ class CategoryBeanTest {
         // Given: Define the test inputs
         String title = "testTitle";
         CategoryEntity categoryEntity = new CategoryEntity(); // Create a new CategoryEntity
-        TaskEntity taskEntity = new TaskEntity(); // Create a new TaskEntity
+        categoryEntity.setId(5); // Set the id of the CategoryEntity
 
         // When: Define the behavior of the mocks
-        // When categoryDao.findCategoryByTitle is called with the test title, return the test CategoryEntity
-        when(categoryDao.findCategoryByTitle(title)).thenReturn(categoryEntity);
+        // When categoryCatalogueBean.findByTitle is called with the test title, return the test CategoryEntity
+        when(categoryCatalogueBean.findByTitle(title)).thenReturn(categoryEntity);
 
-        // When taskDao.findTasksByCategory is called with the test CategoryEntity, return a list with the test TaskEntity
-        when(taskDao.findTasksByCategory(categoryEntity)).thenReturn(Collections.singletonList(taskEntity));
+        // When the counters are asked for the active tasks of the category, return one
+        when(taskCounterBean.countActiveByCategory(5)).thenReturn(1L);
 
         // Then: Assert the expected results
         // Assert that categoryBean.getNumberOfTasksByCategory returns 1 when called with the test title
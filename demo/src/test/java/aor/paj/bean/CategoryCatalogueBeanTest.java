@@ -0,0 +1,67 @@
+package aor.paj.bean;
+
+import aor.paj.dao.CategoryDao;
+import aor.paj.entity.CategoryEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryCatalogueBeanTest {
+
+    @Mock
+    private CategoryDao categoryDao;
+
+    @InjectMocks
+    private CategoryCatalogueBean categoryCatalogueBean;
+
+    private static CategoryEntity category(int id, String title) {
+        CategoryEntity categoryEntity = new CategoryEntity();
+        categoryEntity.setId(id);
+        categoryEntity.setTitle(title);
+        return categoryEntity;
+    }
+
+    @Test
+    void testLookupsAreServedFromMemory() {
+        // Given: the database has two categories when the catalogue is loaded
+        when(categoryDao.getAllCategories()).thenReturn(List.of(category(1, "Backlog"), category(2, "Bugs")));
+        categoryCatalogueBean.load();
+
+        // Then: titles and ids resolve in both directions, ignoring the case of the title
+        assertEquals(2, categoryCatalogueBean.findByTitle("bugs").getId());
+        assertEquals("Backlog", categoryCatalogueBean.getTitle(1));
+        assertTrue(categoryCatalogueBean.titleExists("BACKLOG"));
+        assertNull(categoryCatalogueBean.findByTitle("Missing"));
+        assertNull(categoryCatalogueBean.findById(3));
+
+        // Then: the database was read only once
+        verify(categoryDao, times(1)).getAllCategories();
+    }
+
+    @Test
+    void testWritesReplaceTheSnapshot() {
+        // Given: a catalogue with one category
+        when(categoryDao.getAllCategories()).thenReturn(new ArrayList<>(List.of(category(1, "Backlog"))));
+        categoryCatalogueBean.load();
+
+        // When: a category is added, another renamed and then removed
+        categoryCatalogueBean.put(category(2, "Bugs"));
+        categoryCatalogueBean.put(category(1, "Todo"));
+        categoryCatalogueBean.remove(2);
+
+        // Then: the old title of the renamed category is gone and only the live categories remain
+        assertFalse(categoryCatalogueBean.titleExists("Backlog"));
+        assertEquals(1, categoryCatalogueBean.findByTitle("Todo").getId());
+        assertNull(categoryCatalogueBean.findById(2));
+        verify(categoryDao, times(1)).getAllCategories();
+    }
+}
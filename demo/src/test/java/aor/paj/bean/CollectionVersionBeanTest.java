@@ -0,0 +1,38 @@
+package aor.paj.bean;
+
+import aor.paj.utils.VersionedCollection;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollectionVersionBeanTest {
+
+    private final CollectionVersionBean collectionVersionBean = new CollectionVersionBean();
+
+    @Test
+    void testTagChangesOnlyWhenItsCollectionsChange() {
+        // Given: the tag of a listing built from tasks and categories
+        String tag = collectionVersionBean.getTag(VersionedCollection.TASKS, VersionedCollection.CATEGORIES);
+
+        // When: only the users change
+        collectionVersionBean.bump(VersionedCollection.USERS);
+
+        // Then: the tag is still the same, so the listing is not sent again
+        assertEquals(tag, collectionVersionBean.getTag(VersionedCollection.TASKS, VersionedCollection.CATEGORIES));
+
+        // When: a category changes
+        collectionVersionBean.bump(VersionedCollection.CATEGORIES);
+
+        // Then: the tag changes
+        assertNotEquals(tag, collectionVersionBean.getTag(VersionedCollection.TASKS, VersionedCollection.CATEGORIES));
+        assertEquals(1, collectionVersionBean.getVersion(VersionedCollection.CATEGORIES));
+        assertEquals(0, collectionVersionBean.getVersion(VersionedCollection.TASKS));
+    }
+
+    @Test
+    void testTagsOfDifferentListingsNeverMatch() {
+        // Then: two listings at the same versions still have different tags
+        assertNotEquals(collectionVersionBean.getTag(VersionedCollection.TASKS),
+                collectionVersionBean.getTag(VersionedCollection.USERS));
+    }
+}
@@ -0,0 +1,95 @@
+package aor.paj.bean;
+
+import aor.paj.dao.IdBlockDao;
+import aor.paj.utils.IdSequence;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdGeneratorBeanTest {
+
+    @Mock
+    private IdBlockDao idBlockDao;
+
+    @InjectMocks
+    private IdGeneratorBean idGeneratorBean;
+
+    @Test
+    void testNextIdStartsAtReservedBlock() {
+        // Given: the database already has rows up to id 41, so the first block starts at 42
+        when(idBlockDao.allocateBlock(IdSequence.TASK, IdGeneratorBean.BLOCK_SIZE)).thenReturn(42);
+
+        // Then: ids are handed out from the block without going back to the database
+        assertEquals(42, idGeneratorBean.nextId(IdSequence.TASK));
+        assertEquals(43, idGeneratorBean.nextId(IdSequence.TASK));
+        verify(idBlockDao, times(1)).allocateBlock(IdSequence.TASK, IdGeneratorBean.BLOCK_SIZE);
+    }
+
+    @Test
+    void testSequencesAreIndependent() {
+        // Given: each sequence reserves its own block
+        when(idBlockDao.allocateBlock(IdSequence.USER, IdGeneratorBean.BLOCK_SIZE)).thenReturn(1);
+        when(idBlockDao.allocateBlock(IdSequence.CATEGORY, IdGeneratorBean.BLOCK_SIZE)).thenReturn(7);
+
+        // Then: ids of one sequence do not consume ids of the other
+        assertEquals(1, idGeneratorBean.nextId(IdSequence.USER));
+        assertEquals(7, idGeneratorBean.nextId(IdSequence.CATEGORY));
+        assertEquals(2, idGeneratorBean.nextId(IdSequence.USER));
+    }
+
+    @Test
+    void testConcurrentCreatorsNeverShareAnId() throws Exception {
+        // Given: a fake id_block row that hands out consecutive blocks
+        AtomicInteger nextBlock = new AtomicInteger(1);
+        when(idBlockDao.allocateBlock(eq(IdSequence.TASK), anyInt()))
+                .thenAnswer(invocation -> nextBlock.getAndAdd(invocation.getArgument(1)));
+
+        int threads = 32;
+        int idsPerThread = 2_000;
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When: many creators ask for ids at the same time
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < idsPerThread; i++) {
+                    assertTrue(ids.add(idGeneratorBean.nextId(IdSequence.TASK)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then: every id is unique, there are no gaps, and the database was hit once per block
+        int total = threads * idsPerThread;
+        assertEquals(total, ids.size());
+        assertEquals(1, ids.stream().mapToInt(Integer::intValue).min().getAsInt());
+        assertEquals(total, ids.stream().mapToInt(Integer::intValue).max().getAsInt());
+        verify(idBlockDao, times(total / IdGeneratorBean.BLOCK_SIZE)).allocateBlock(eq(IdSequence.TASK), anyInt());
+    }
+}
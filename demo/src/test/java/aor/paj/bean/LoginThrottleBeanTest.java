@@ -0,0 +1,129 @@
+package aor.paj.bean;
+
+import aor.paj.dto.LoginThrottleStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleBeanTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void testUserIsLimitedInTheWindow() {
+        // Given: 3 attempts per user and 100 per client in 60 seconds
+        LoginThrottleBean throttle = new LoginThrottleBean(3, 100, 60_000, 1_000, now::get);
+
+        // When: the user uses the 3 attempts, one second apart
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, throttle.tryAcquire("testUser", "10.0.0.1"));
+            now.addAndGet(1_000);
+        }
+
+        // Then: the next attempt waits until the first one leaves the window, also from another client and in other case
+        assertEquals(57_000, throttle.tryAcquire("TestUser", "10.0.0.2"));
+        assertEquals(0, throttle.tryAcquire("otherUser", "10.0.0.1"));
+
+        // When: the first attempt leaves the window
+        now.addAndGet(57_000);
+
+        // Then: one more attempt is allowed
+        assertEquals(0, throttle.tryAcquire("testUser", "10.0.0.1"));
+        assertTrue(throttle.tryAcquire("testUser", "10.0.0.1") > 0);
+        assertEquals(2, throttle.getStats().getRejectedByUser());
+    }
+
+    @Test
+    void testClientIsLimitedAcrossUsers() {
+        // Given: 2 attempts per client
+        LoginThrottleBean throttle = new LoginThrottleBean(5, 2, 60_000, 1_000, now::get);
+
+        // When: one client tries many usernames
+        assertEquals(0, throttle.tryAcquire("user1", "10.0.0.1"));
+        assertEquals(0, throttle.tryAcquire("user2", "10.0.0.1"));
+
+        // Then: the third username is rejected, and the rejected username did not use an attempt
+        assertTrue(throttle.tryAcquire("user3", "10.0.0.1") > 0);
+        assertEquals(0, throttle.tryAcquire("user3", "10.0.0.2"));
+
+        LoginThrottleStatsDto stats = throttle.getStats();
+        assertEquals(3, stats.getAllowed());
+        assertEquals(1, stats.getRejectedByClient());
+        assertEquals(2, stats.getTrackedClients());
+    }
+
+    @Test
+    void testResetForgetsUserAttempts() {
+        // Given: a user that used all the attempts
+        LoginThrottleBean throttle = new LoginThrottleBean(1, 100, 60_000, 1_000, now::get);
+        assertEquals(0, throttle.tryAcquire("testUser", "10.0.0.1"));
+        assertTrue(throttle.tryAcquire("testUser", "10.0.0.1") > 0);
+
+        // When: the user logs in
+        throttle.reset("testUser");
+
+        // Then: the user may try again
+        assertEquals(0, throttle.tryAcquire("testUser", "10.0.0.1"));
+    }
+
+    @Test
+    void testKeysAreBounded() {
+        // Given: room for 64 keys, one in each stripe
+        LoginThrottleBean throttle = new LoginThrottleBean(1, 100_000, 60_000, 64, now::get);
+
+        // When: many different usernames are tried
+        for (int i = 0; i < 10_000; i++) {
+            throttle.tryAcquire("user" + i, "10.0.0.1");
+        }
+
+        // Then: no more than the limit is kept
+        assertTrue(throttle.getStats().getTrackedUsers() <= 64);
+    }
+
+    @Test
+    void testParallelBurstDoesNotPassTheLimit() throws Exception {
+        // Given: 5 attempts per user
+        LoginThrottleBean throttle = new LoginThrottleBean(5, 1_000, 60_000, 1_000, now::get);
+        int attempts = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+
+        // When: many attempts for the same username arrive at once from different clients
+        for (int i = 0; i < attempts; i++) {
+            String client = "10.0.0." + i;
+            results.add(executor.submit(() -> {
+                start.await();
+                return throttle.tryAcquire("testUser", client);
+            }));
+        }
+        start.countDown();
+        int allowed = 0;
+        for (Future<Long> result : results) {
+            if (result.get(5, TimeUnit.SECONDS) == 0) {
+                allowed++;
+            }
+        }
+        executor.shutdown();
+
+        // Then: only the limit of the user got through
+        assertEquals(5, allowed);
+        assertEquals(attempts - 5, throttle.getStats().getRejectedByUser());
+    }
+
+    @Test
+    void testLimitsMustAllowOneAttempt() {
+        // When / Then: a limit of 0 is refused when the bean is built
+        assertThrows(IllegalArgumentException.class, () -> new LoginThrottleBean(0, 20, 60_000, 1_000, now::get));
+        assertThrows(IllegalArgumentException.class, () -> new LoginThrottleBean(5, 0, 60_000, 1_000, now::get));
+    }
+}
@@ -0,0 +1,98 @@
+package aor.paj.bean;
+
+import aor.paj.dao.IdBlockDao;
+import aor.paj.utils.IdSequence;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Runs MigrationBean on a database created before the migrations existed, like the ones in production, so a migration
+//that only works on an empty database fails the build
+class MigrationBeanTest {
+
+    private static final String URL_OPTIONS = ";MODE=MySQL;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void testOldDatabaseIsBaselinedAndAllocatesIds() throws Exception {
+        // Given: the schema of hibernate.hbm2ddl.auto=update, without id_block, with a user, a category and a task
+        String url = "jdbc:h2:mem:migration_old" + URL_OPTIONS;
+        JdbcDataSource dataSource = dataSource(url);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:db/migration/V1__baseline.sql'");
+            statement.execute("insert into user (id, active, email, firstname, lastname, password, phone, photoURL, role, username)"
+                    + " values (7, true, 'a@b.c', 'A', 'B', 'x', '1', 'p', 'po', 'admin')");
+            statement.execute("insert into category (id, description, title, owner_id) values (3, 'd', 'Backend', 7)");
+            statement.execute("insert into task (id, active, description, initialDate, priority, status, title, category_id, owner_id)"
+                    + " values (41, true, 'd', '2024-01-01', 100, 100, 'First', 3, 7)");
+        }
+
+        // When: the server starts
+        migrate(dataSource);
+
+        // Then: the ids go on after the rows that were there
+        assertEquals(42, allocate(url, IdSequence.TASK));
+        assertEquals(8, allocate(url, IdSequence.USER));
+        assertEquals(4, allocate(url, IdSequence.CATEGORY));
+    }
+
+    @Test
+    void testIdBlocksAlreadyInTheDatabaseAreKept() throws Exception {
+        // Given: an old database where IdBlockDao already made id_block and reserved ids up to 100 for the tasks
+        String url = "jdbc:h2:mem:migration_seeded" + URL_OPTIONS;
+        JdbcDataSource dataSource = dataSource(url);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:db/migration/V1__baseline.sql'");
+            statement.execute("create table id_block (name varchar(255) not null, next_id integer not null, primary key (name))");
+            statement.execute("insert into id_block (name, next_id) values ('task', 101), ('user', 1), ('category', 1)");
+        }
+
+        // When: the server starts
+        migrate(dataSource);
+
+        // Then: the migration does not insert the rows again, and the reserved ids are not given again
+        assertEquals(101, allocate(url, IdSequence.TASK));
+        assertEquals(1, allocate(url, IdSequence.USER));
+    }
+
+    private static JdbcDataSource dataSource(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        return dataSource;
+    }
+
+    private static void migrate(JdbcDataSource dataSource) {
+        MigrationBean migrationBean = new MigrationBean();
+        migrationBean.dataSource = dataSource;
+        migrationBean.migrate();
+    }
+
+    //Function that allocates a block of one id of the sequence in its own transaction, like IdGeneratorBean
+    private static int allocate(String url, IdSequence sequence) {
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("TestPersistenceUnit",
+                Map.of("jakarta.persistence.jdbc.url", url, "jakarta.persistence.jdbc.user", "sa"));
+        EntityManager entityManager = emf.createEntityManager();
+        try {
+            IdBlockDao idBlockDao = new IdBlockDao() {
+                {
+                    em = entityManager;
+                }
+            };
+            entityManager.getTransaction().begin();
+            int id = idBlockDao.allocateBlock(sequence, 1);
+            entityManager.getTransaction().commit();
+            return id;
+        } finally {
+            entityManager.close();
+            emf.close();
+        }
+    }
+}
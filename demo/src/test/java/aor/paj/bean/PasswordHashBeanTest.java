@@ -0,0 +1,71 @@
+package aor.paj.bean;
+
+import aor.paj.dto.PasswordHashStatsDto;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashBeanTest {
+
+    private final PasswordHashBean passwordHashBean = new PasswordHashBean(4);
+
+    @Test
+    void testHashUsesConfiguredCost() {
+        // When: a password is hashed
+        String hash = passwordHashBean.hash("password");
+
+        // Then: it has the configured cost and matches only the same password
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(passwordHashBean.verify("password", hash));
+        assertFalse(passwordHashBean.verify("other", hash));
+    }
+
+    @Test
+    void testNeedsRehashWhenCostDiffers() {
+        // Then: only hashes made with another cost, or that are not BCrypt hashes, need a new hash
+        assertFalse(passwordHashBean.needsRehash(BCrypt.hashpw("password", BCrypt.gensalt(4))));
+        assertTrue(passwordHashBean.needsRehash(BCrypt.hashpw("password", BCrypt.gensalt(5))));
+        assertTrue(passwordHashBean.needsRehash("password"));
+        assertTrue(passwordHashBean.needsRehash(null));
+    }
+
+    @Test
+    void testAcceptedHashNeedsBcryptFormatAndCost() {
+        // Given: a bean with cost 5
+        PasswordHashBean strongerBean = new PasswordHashBean(5);
+        String hash = BCrypt.hashpw("password", BCrypt.gensalt(5));
+
+        // Then: only well formed $2a$ or $2b$ hashes with at least that cost are accepted
+        assertTrue(strongerBean.isAcceptedHash(hash));
+        assertTrue(strongerBean.isAcceptedHash("$2b$" + hash.substring(4)));
+        assertFalse(strongerBean.isAcceptedHash(BCrypt.hashpw("password", BCrypt.gensalt(4))));
+        assertFalse(strongerBean.isAcceptedHash("$2y$" + hash.substring(4)));
+        assertFalse(strongerBean.isAcceptedHash(hash.substring(0, hash.length() - 1)));
+        assertFalse(strongerBean.isAcceptedHash("$2a$05$"));
+        assertFalse(strongerBean.isAcceptedHash(null));
+    }
+
+    @Test
+    void testCostIsKeptInBcryptRange() {
+        assertEquals(4, new PasswordHashBean(1).getCost());
+        assertEquals(31, new PasswordHashBean(40).getCost());
+    }
+
+    @Test
+    void testStatsCountOperations() {
+        // Given: one hash, one good check and one wrong check
+        String hash = passwordHashBean.hash("password");
+        passwordHashBean.verify("password", hash);
+        passwordHashBean.verify("other", hash);
+
+        // Then: they are counted and timed
+        PasswordHashStatsDto stats = passwordHashBean.getStats();
+        assertEquals(4, stats.getCost());
+        assertEquals(1, stats.getHashes());
+        assertEquals(2, stats.getVerifications());
+        assertEquals(1, stats.getFailedVerifications());
+        assertTrue(stats.getMaxMillis() > 0);
+        assertTrue(stats.getAverageMillis() <= stats.getMaxMillis());
+    }
+}
@@ -0,0 +1,97 @@
+package aor.paj.bean;
+
+import aor.paj.dto.CacheStatsDto;
+import aor.paj.dto.SessionDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionCacheBeanTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    private SessionDto session(String username) {
+        return new SessionDto(1, username, "dev", true);
+    }
+
+    @Test
+    void testGetCountsHitsAndMisses() {
+        // Given: a cache with one session
+        SessionCacheBean cache = new SessionCacheBean(10, 60_000, now::get);
+        cache.put("token", session("testUser"));
+
+        // Then: a known token is a hit and an unknown one is a miss
+        assertEquals("testUser", cache.get("token").getUsername());
+        assertNull(cache.get("other"));
+        assertNull(cache.get(null));
+
+        CacheStatsDto stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void testLoadThatStartedBeforeAnInvalidationIsNotCached() {
+        // Given: a request that misses the cache and starts reading the user from the database
+        SessionCacheBean cache = new SessionCacheBean(10, 60_000, now::get);
+        long stamp = cache.stamp();
+
+        // When: the user logs out and the invalidation runs before the request caches what it read
+        cache.invalidate("token");
+        cache.put("token", session("testUser"), stamp);
+
+        // Then: the old session is not cached, but a load that started after the logout is
+        assertNull(cache.get("token"));
+        cache.put("token", session("testUser"), cache.stamp());
+        assertNotNull(cache.get("token"));
+    }
+
+    @Test
+    void testExpiredEntriesAreEvicted() {
+        // Given: a cache with a 1 second time to live
+        SessionCacheBean cache = new SessionCacheBean(10, 1_000, now::get);
+        cache.put("token", session("testUser"));
+
+        // When: the time to live passes
+        now.addAndGet(1_000);
+
+        // Then: the entry is gone and counted as an eviction
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void testInvalidateRemovesSession() {
+        // Given: a cache with one session
+        SessionCacheBean cache = new SessionCacheBean(10, 60_000, now::get);
+        cache.put("token", session("testUser"));
+
+        // When: the session is invalidated
+        cache.invalidate("token");
+        cache.invalidate(null);
+
+        // Then: the next lookup is a miss
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        // Given: a cache that holds at most 10 sessions
+        SessionCacheBean cache = new SessionCacheBean(10, 60_000, now::get);
+
+        // When: more sessions than that are cached
+        for (int i = 0; i < 25; i++) {
+            now.incrementAndGet();
+            cache.put("token" + i, session("user" + i));
+        }
+
+        // Then: the size never exceeds the bound and the oldest sessions were the ones evicted
+        assertTrue(cache.getStats().getSize() <= 10);
+        assertEquals(15, cache.getStats().getEvictions());
+        assertNull(cache.get("token0"));
+        assertNotNull(cache.get("token24"));
+    }
+}
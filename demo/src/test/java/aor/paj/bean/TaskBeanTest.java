@@ -3,17 +3,40 @@ package aor.paj.bean;
 import aor.paj.bean.TaskBean;
 import aor.paj.dao.TaskDao;
 import aor.paj.dao.UserDao;
+import aor.paj.dto.BatchResultDto;
+import aor.paj.dto.SessionDto;
 import aor.paj.dto.TaskDto;
+import aor.paj.dto.TaskEventDto;
+import aor.paj.dto.TaskFilterDto;
+import aor.paj.dto.TaskMoveDto;
+import aor.paj.dto.TaskPageDto;
+import aor.paj.dto.TaskStatsDto;
+import aor.paj.entity.CategoryEntity;
 import aor.paj.entity.TaskEntity;
 import aor.paj.entity.UserEntity;
+import aor.paj.utils.IdSequence;
+import aor.paj.utils.TaskCursor;
+import aor.paj.utils.TaskState;
+import aor.paj.utils.VersionedCollection;
+import jakarta.ejb.EJBException;
+import jakarta.persistence.OptimisticLockException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.Statement;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +54,258 @@ class TaskBeanTest {
     @Mock
     private UserDao userDao;
 
+    // Mock the catalogue of categories
+    @Mock
+    private CategoryCatalogueBean categoryCatalogueBean;
+
+    // Mock the UserBean, used to invalidate the cached list of owners
+    @Mock
+    private UserBean userBean;
+
+    @Mock
+    private CollectionVersionBean collectionVersionBean;
+
+    @Mock
+    private TaskEventBean taskEventBean;
+
+    @Mock
+    private IdGeneratorBean idGeneratorBean;
+
+    @Mock
+    private TaskCounterBean taskCounterBean;
+
+    private static TaskDto newTask(String title, String category) {
+        TaskDto taskDto = new TaskDto(title, "description", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), 100);
+        taskDto.setCategory(category);
+        return taskDto;
+    }
+
+    @Test
+    void testAddTasksCreatesValidTasksInOneBatch() {
+        // Given: a valid task, a task with a title that exists, a task repeating the first title, a task with an unknown
+        // category, an invalid task and another valid task
+        List<TaskDto> taskDtos = List.of(newTask("First", "Backend"), newTask("Existing", "Backend"),
+                newTask("first", "Backend"), newTask("Other", "Unknown"), newTask("", "Backend"), newTask("Second", "Backend"));
+        SessionDto session = new SessionDto(5, "testUser", "dev", true);
+        CategoryEntity categoryEntity = new CategoryEntity();
+        categoryEntity.setTitle("Backend");
+
+        // When
+        when(userDao.find(5)).thenReturn(new UserEntity());
+        when(taskDao.findExistingTitles(anyList())).thenReturn(List.of("EXISTING"));
+        when(categoryCatalogueBean.findByTitle("Backend")).thenReturn(categoryEntity);
+        when(idGeneratorBean.nextIds(IdSequence.TASK, 2)).thenReturn(100);
+        List<BatchResultDto> results = taskBean.addTasks(session, taskDtos);
+
+        // Then: each task gets its outcome in order, and the two valid ones are inserted together with consecutive ids
+        assertEquals(List.of(201, 409, 409, 400, 400, 201), results.stream().map(BatchResultDto::getStatus).collect(Collectors.toList()));
+        assertEquals(100, results.get(0).getId());
+        assertEquals(101, results.get(5).getId());
+        assertNull(results.get(1).getId());
+
+        verify(taskDao, times(1)).findExistingTitles(anyList());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TaskEntity>> persisted = ArgumentCaptor.forClass(List.class);
+        verify(taskDao).persistAll(persisted.capture());
+        assertEquals(2, persisted.getValue().size());
+        assertEquals("Second", persisted.getValue().get(1).getTitle());
+        verify(collectionVersionBean).bump(VersionedCollection.TASKS);
+        verify(taskEventBean).publishReload();
+    }
+
+    @Test
+    void testAddTasksWithoutValidTasksWritesNothing() {
+        // When: no task is valid
+        List<BatchResultDto> results = taskBean.addTasks(new SessionDto(5, "testUser", "dev", true), List.of(newTask("", "Backend")));
+
+        // Then: nothing is inserted or published
+        assertEquals(400, results.get(0).getStatus());
+        verify(taskDao, never()).persistAll(anyList());
+        verifyNoInteractions(idGeneratorBean, taskEventBean);
+    }
+
+
+    @Test
+    void testImportTasksKeepsOwnerAndStatus() {
+        // Given: a finished task of another user, a task of an owner that does not exist and a task with an unknown status
+        TaskDto done = newTask("Done", "Backend");
+        done.setOwner("Maria");
+        done.setStatus(300);
+        done.setActive(true);
+        TaskDto orphan = newTask("Orphan", "Backend");
+        orphan.setOwner("ghost");
+        orphan.setStatus(100);
+        TaskDto broken = newTask("Broken", "Backend");
+        broken.setOwner("maria");
+        broken.setStatus(42);
+        UserEntity maria = new UserEntity();
+        maria.setUsername("maria");
+
+        // When
+        when(userDao.findUsersByUsernames(anyCollection())).thenReturn(List.of(maria));
+        when(taskDao.findExistingTitles(anyList())).thenReturn(List.of());
+        when(categoryCatalogueBean.findByTitle("Backend")).thenReturn(new CategoryEntity());
+        when(idGeneratorBean.nextIds(IdSequence.TASK, 1)).thenReturn(7);
+        List<BatchResultDto> results = taskBean.importTasks(List.of(done, orphan, broken));
+
+        // Then: the owners are read in one query, the task keeps its owner and status, and no event is published
+        assertEquals(List.of(201, 400, 400), results.stream().map(BatchResultDto::getStatus).collect(Collectors.toList()));
+        verify(userDao, times(1)).findUsersByUsernames(anyCollection());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TaskEntity>> persisted = ArgumentCaptor.forClass(List.class);
+        verify(taskDao).persistAll(persisted.capture());
+        assertSame(maria, persisted.getValue().get(0).getOwner());
+        assertEquals(300, persisted.getValue().get(0).getStatus());
+        verifyNoInteractions(taskEventBean);
+    }
+
+
+    private static final SessionDto SCRUM_MASTER = new SessionDto(9, "scrumMaster", "sm", true);
+
+    @Test
+    void testUpdateTaskStatusIsOneConditionalUpdate() {
+        // Given: a task still with the version the client read
+        when(taskDao.updateStatus(7, 300, 3, null)).thenReturn(true);
+
+        // When
+        int result = taskBean.updateTaskStatus(SCRUM_MASTER, 7, 300, 3);
+
+        // Then: it is moved by the UPDATE alone, nothing is read first, and the boards get the new version
+        assertEquals(200, result);
+        verify(taskDao, never()).findTaskById(anyInt());
+        verify(taskDao, never()).findState(anyInt());
+        verifyNoInteractions(taskCounterBean);
+        verify(taskEventBean).publishStatus(7, 300, 4);
+    }
+
+    @Test
+    void testUpdateTaskStatusWithoutVersionMovesAnyVersion() {
+        // When: a client that sends no version moves a task
+        when(taskDao.updateStatus(7, 300, null, null)).thenReturn(true);
+
+        // Then: it is moved in one UPDATE and the boards get the move without a version
+        assertEquals(200, taskBean.updateTaskStatus(SCRUM_MASTER, 7, 300, null));
+        verify(taskDao, never()).findState(anyInt());
+        verify(taskEventBean).publishStatus(7, 300, null);
+    }
+
+    @Test
+    void testUpdateTaskStatusWithStaleVersionIsAConflict() {
+        // When: another user moved the task after the client read it, and other tasks do not exist
+        when(taskDao.updateStatus(anyInt(), eq(300), eq(3), isNull())).thenReturn(false);
+        when(taskDao.updateStatus(9, 300, null, null)).thenReturn(false);
+        when(taskDao.findState(7)).thenReturn(new TaskState(7, 4, 2, 5, 200, true));
+        when(taskDao.findState(8)).thenReturn(null);
+        when(taskDao.findState(9)).thenReturn(null);
+
+        // Then: the task is read only to tell the conflict from a missing task, and nothing is published
+        assertEquals(409, taskBean.updateTaskStatus(SCRUM_MASTER, 7, 300, 3));
+        assertEquals(404, taskBean.updateTaskStatus(SCRUM_MASTER, 8, 300, 3));
+        assertEquals(404, taskBean.updateTaskStatus(SCRUM_MASTER, 9, 300, null));
+        verifyNoInteractions(taskCounterBean, taskEventBean, collectionVersionBean);
+    }
+
+    @Test
+    void testDevMovingTheTaskOfAnotherOwnerIsForbiddenOneByOneAndInABatch() {
+        // Given: a dev with id 5 and a task of owner 6
+        SessionDto dev = new SessionDto(5, "testUser", "dev", true);
+        TaskState otherOwners = new TaskState(7, 3, 2, 6, 200, true);
+        when(taskDao.updateStatus(7, 300, 3, 5)).thenReturn(false);
+        when(taskDao.findState(7)).thenReturn(otherOwners);
+        when(taskDao.findStates(Set.of(7))).thenReturn(Map.of(7, otherOwners));
+
+        // When: the dev moves it alone and in a batch
+        int alone = taskBean.updateTaskStatus(dev, 7, 300, 3);
+        List<BatchResultDto> batch = taskBean.updateTaskStatuses(dev, List.of(new TaskMoveDto(7, 300, 3)));
+
+        // Then: both are refused, and nothing is written by the batch or published
+        assertEquals(403, alone);
+        assertEquals(403, batch.get(0).getStatus());
+        verify(taskDao, never()).updateStatuses(anyList());
+        verifyNoInteractions(taskEventBean, collectionVersionBean);
+    }
+
+    @Test
+    void testUpdateTaskStatusesAppliesTheMovesInOneBatch() {
+        // Given: a move with its version, a move to an unknown status, a move without version, a move based on an old
+        // version, a move of a task that does not exist and a move that loses to another change during the batch
+        List<TaskMoveDto> moves = List.of(new TaskMoveDto(1, 300, 2), new TaskMoveDto(2, 42, null), new TaskMoveDto(3, 300, null),
+                new TaskMoveDto(4, 300, 1), new TaskMoveDto(5, 300, null), new TaskMoveDto(6, 100, null));
+
+        // When
+        when(taskDao.findStates(Set.of(1, 3, 4, 5, 6))).thenReturn(Map.of(1, new TaskState(1, 2, 1, 1, 200, true),
+                3, new TaskState(3, 5, 1, 1, 200, true), 4, new TaskState(4, 2, 1, 1, 200, true), 6, new TaskState(6, 0, 1, 1, 200, true)));
+        when(taskDao.updateStatuses(anyList())).thenReturn(new int[]{1, 1, 0});
+        List<BatchResultDto> results = taskBean.updateTaskStatuses(new SessionDto(9, "scrumMaster", "sm", true), moves);
+
+        // Then: the tasks are read in one query, the three moves that can apply go in one batch, and each move gets its outcome in order
+        assertEquals(List.of(200, 400, 200, 409, 404, 409), results.stream().map(BatchResultDto::getStatus).collect(Collectors.toList()));
+        assertEquals(3, results.get(2).getId());
+        assertNull(results.get(5).getId());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TaskMoveDto>> applied = ArgumentCaptor.forClass(List.class);
+        verify(taskDao, times(1)).updateStatuses(applied.capture());
+        assertEquals(List.of(2, 5, 0), applied.getValue().stream().map(TaskMoveDto::getExpectedVersion).collect(Collectors.toList()));
+        verifyNoInteractions(taskCounterBean);
+        verify(collectionVersionBean, times(1)).bump(VersionedCollection.TASKS);
+        verify(taskEventBean).publishStatus(1, 300, 3);
+        verify(taskEventBean).publishStatus(3, 300, 6);
+        verifyNoMoreInteractions(taskEventBean);
+    }
+
+    @Test
+    void testUpdateTaskStatusesOnlyMovesTheTasksADevOwns() {
+        // Given: a dev with id 5 moves a task of their own, a task of owner 6, and a task of their own the driver
+        // answers for with EXECUTE_FAILED
+        List<TaskMoveDto> moves = List.of(new TaskMoveDto(1, 300, null), new TaskMoveDto(2, 300, null), new TaskMoveDto(3, 300, null));
+
+        // When
+        when(taskDao.findStates(Set.of(1, 2, 3))).thenReturn(Map.of(1, new TaskState(1, 0, 1, 5, 200, true),
+                2, new TaskState(2, 0, 1, 6, 200, true), 3, new TaskState(3, 0, 1, 5, 200, true)));
+        when(taskDao.updateStatuses(anyList())).thenReturn(new int[]{1, Statement.EXECUTE_FAILED});
+        List<BatchResultDto> results = taskBean.updateTaskStatuses(new SessionDto(5, "testUser", "dev", true), moves);
+
+        // Then: the task of the other owner is refused before the batch, and only a count of one row is a move
+        assertEquals(List.of(200, 403, 409), results.stream().map(BatchResultDto::getStatus).collect(Collectors.toList()));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TaskMoveDto>> applied = ArgumentCaptor.forClass(List.class);
+        verify(taskDao).updateStatuses(applied.capture());
+        assertEquals(List.of(1, 3), applied.getValue().stream().map(TaskMoveDto::getId).collect(Collectors.toList()));
+        verify(taskEventBean).publishStatus(1, 300, 1);
+        verifyNoMoreInteractions(taskEventBean);
+    }
+
+    @Test
+    void testGetTaskStatsComesFromTheCounters() {
+        // Given: counters with two active tasks of category 2 and owner 5, an owner without active tasks left, and both tasks in TODO
+        Map<Integer, LongAdder> byOwner = new HashMap<>();
+        byOwner.put(5, adder(2));
+        byOwner.put(6, adder(0));
+
+        // When
+        when(taskDao.countActiveByStatus()).thenReturn(List.<Object[]>of(new Object[]{100, 2L}));
+        when(taskCounterBean.getActiveByCategory()).thenReturn(Map.of(2, adder(2)));
+        when(taskCounterBean.getActiveByOwner()).thenReturn(byOwner);
+        when(taskCounterBean.countActive()).thenReturn(2L);
+        when(taskCounterBean.countInactive()).thenReturn(7L);
+        when(categoryCatalogueBean.getTitle(2)).thenReturn("Backend");
+        when(userDao.findUsernamesByIds(Set.of(5))).thenReturn(Map.of(5, "maria"));
+        TaskStatsDto stats = taskBean.getTaskStats();
+
+        // Then: only the statuses are counted in the database
+        assertEquals(Map.of(100, 2L), stats.getStatuses());
+        assertEquals(Map.of("Backend", 2L), stats.getCategories());
+        assertEquals(Map.of("maria", 2L), stats.getOwners());
+        assertEquals(7, stats.getInactive());
+        verify(taskDao).countActiveByStatus();
+        verifyNoMoreInteractions(taskDao);
+    }
+
+    private static LongAdder adder(long value) {
+        LongAdder adder = new LongAdder();
+        adder.add(value);
+        return adder;
+    }
 
     @Test // Annotates the method as a test method for JUnit
     void testTaskTitleExists() {
@@ -56,21 +331,57 @@ class TaskBeanTest {
     @Test // Annotates the method as a test method for JUnit
     void testGetAllTasks() {
         // Given
-        List<TaskEntity> taskEntities = new ArrayList<>(); // Create a list of TaskEntity objects
-        TaskEntity taskEntity = new TaskEntity(); // Create a new TaskEntity object
-        taskEntities.add(taskEntity); // Add the TaskEntity object to the list
+        List<TaskDto> projected = new ArrayList<>(); // Create the list of TaskDto objects built by the projection query
+        projected.add(new TaskDto(1, "Test Task", "Description", LocalDate.of(2024, 1, 1), null, 100, 300, "Backlog", "testUser", true, 0));
 
-        when(taskDao.getAllTasks()).thenReturn(taskEntities); // Define the behavior of the mock object taskDao. When the method getAllTasks is called, it returns the list of TaskEntity objects
+        when(taskDao.getAllTasks()).thenReturn(projected); // Define the behavior of the mock object taskDao. When the method getAllTasks is called, it returns the list of TaskDto objects
 
         // When
         List<TaskDto> taskDtos = taskBean.getAllTasks(); // Call the method getAllTasks and store the returned list of TaskDto objects
 
         // Then
         assertFalse(taskDtos.isEmpty()); // Assert that the returned list is not empty
-        assertEquals(taskEntities.size(), taskDtos.size()); // Assert that the size of the returned list is equal to the size of the list of TaskEntity objects
+        assertEquals(projected.size(), taskDtos.size()); // Assert that the size of the returned list is equal to the size of the projected list
+        assertEquals("testUser", taskDtos.get(0).getOwner()); // Assert that the owner came from the projection, no UserEntity was needed
         verify(taskDao).getAllTasks(); // Verify that the method getAllTasks of the mock object taskDao was called
     }
 
+    @Test
+    void testGetTasksReturnsNextCursorWhenThereAreMoreTasks() {
+        // Given: three tasks match the filter and the page size is two
+        TaskFilterDto filter = new TaskFilterDto("Backlog", null, null, null);
+        List<TaskDto> projected = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            projected.add(new TaskDto(id, "Task " + id, "Description", LocalDate.of(2024, 1, id), null, 100, 300, "Backlog", "testUser", true, 0));
+        }
+
+        // When: the dao is asked for one task more than the page size
+        when(taskDao.findTasks(filter, null, 3)).thenReturn(projected);
+        TaskPageDto page = taskBean.getTasks(filter, null, 2);
+
+        // Then: only two tasks are returned and the cursor points at the last of them
+        assertEquals(2, page.getTasks().size());
+        TaskCursor cursor = TaskCursor.decode(page.getNextCursor());
+        assertEquals(2, cursor.getId());
+        assertEquals(LocalDate.of(2024, 1, 2), cursor.getInitialDate());
+        assertEquals(TaskCursor.NO_FINAL_DATE, cursor.getFinalDate());
+    }
+
+    @Test
+    void testGetTasksLastPageHasNoCursor() {
+        // Given: a single task matches the filter
+        TaskFilterDto filter = new TaskFilterDto(null, "testUser", 100, true);
+        TaskDto taskDto = new TaskDto(1, "Task 1", "Description", LocalDate.of(2024, 1, 1), null, 100, 300, "Backlog", "testUser", true, 0);
+
+        // When: a page of two tasks is requested
+        when(taskDao.findTasks(filter, null, 3)).thenReturn(List.of(taskDto));
+        TaskPageDto page = taskBean.getTasks(filter, null, 2);
+
+        // Then: the task is returned and there is no next page
+        assertEquals(1, page.getTasks().size());
+        assertNull(page.getNextCursor());
+    }
+
     @Test // Annotates the method as a test method for JUnit
     void testDesactivateTask() {
         // Given
@@ -82,12 +393,12 @@ class TaskBeanTest {
         when(taskDao.findTaskById(id)).thenReturn(taskEntity);
         // Define the behavior of the mock object taskDao. When the method findTaskById is called with the id, it returns the taskEntity
 
-        doNothing().when(taskDao).merge(taskEntity);
-        // Define the behavior of the mock object taskDao. When the method merge is called with the taskEntity, it does nothing
+        when(taskDao.update(taskEntity)).thenReturn(taskEntity);
+        // Define the behavior of the mock object taskDao. When the method update is called with the taskEntity, it returns the saved task
 
         // Then
-        assertTrue(taskBean.desactivateTask(id));
-        // Assert that the method desactivateTask of taskBean returns true when called with the id
+        assertEquals(200, taskBean.desactivateTask(id));
+        // Assert that the method desactivateTask of taskBean returns 200 when called with the id
 
         assertFalse(taskEntity.getActive());
         // Assert that the active status of the taskEntity is false
@@ -95,39 +406,105 @@ class TaskBeanTest {
         verify(taskDao).findTaskById(id);
         // Verify that the method findTaskById of the mock object taskDao was called with the id
 
-        verify(taskDao).merge(taskEntity);
-        // Verify that the method merge of the mock object taskDao was called with the taskEntity
+        verify(taskDao).update(taskEntity);
+        // Verify that the method update of the mock object taskDao was called with the taskEntity
+
+        verify(collectionVersionBean).bump(VersionedCollection.TASKS);
+        // Verify that the version of the tasks changed, so the next poll of GET /tasks gets the new list
+
+        verify(taskEventBean).publish(TaskEventDto.DESACTIVATED, id, null, null);
+        // Verify that the open boards were told about the change after it was saved
+    }
+
+    @Test
+    void testRestoreTaskAfterAMoveIsAConflict() {
+        // Given: a task read with version 3
+        TaskEntity taskEntity = new TaskEntity();
+        taskEntity.setId(7);
+        taskEntity.setActive(true);
+        when(taskDao.findTaskById(7)).thenReturn(taskEntity);
+
+        // When: a move of its status commits before it is saved
+        when(taskDao.update(taskEntity)).thenThrow(new EJBException(new OptimisticLockException("stale")));
+
+        // Then: the change is refused like a stale move, and nothing is counted or published
+        assertEquals(409, taskBean.restoreTask(7));
+        verifyNoInteractions(taskCounterBean, taskEventBean, collectionVersionBean);
+    }
+
+    @Test
+    void testUpdateTaskPublishesTheSavedVersion() {
+        // Given: a task read with version 3, saved as version 4
+        TaskEntity read = new TaskEntity();
+        read.setId(7);
+        read.setActive(true);
+        TaskEntity saved = new TaskEntity();
+        saved.setId(7);
+        saved.setActive(true);
+        saved.setVersion(4);
+        when(taskDao.findTaskById(7)).thenReturn(read);
+        when(taskDao.update(read)).thenReturn(saved);
+
+        // When
+        assertEquals(200, taskBean.updateTask(new TaskDto(), 7));
+
+        // Then: the boards get the version they must send with their next move
+        ArgumentCaptor<TaskDto> published = ArgumentCaptor.forClass(TaskDto.class);
+        verify(taskEventBean).publish(eq(TaskEventDto.UPDATED), eq(7), isNull(), published.capture());
+        assertEquals(4, published.getValue().getVersion());
     }
 
     // Define a test method
     @Test
     void testTaskBelongsToUser() {
         // Given: Define the test inputs
-        String token = "testToken";
         int id = 1;
-
-        // Create a UserEntity and set its id
-        UserEntity userEntity = new UserEntity();
-        userEntity.setId(id);
-
-        // Create a TaskEntity and set its owner
-        TaskEntity taskEntity = new TaskEntity();
-        taskEntity.setOwner(userEntity);
+        SessionDto session = new SessionDto(id, "testUser", "dev", true);
 
         // When: Define the behavior of the mocks
-        // When userDao.findUserByToken is called with the test token, return the test UserEntity
-        when(userDao.findUserByToken(token)).thenReturn(userEntity);
-        // When taskDao.findTaskById is called with the test id, return the test TaskEntity
-        when(taskDao.findTaskById(id)).thenReturn(taskEntity);
+        // When taskDao.isTaskOwner is called with the task id and the owner id, report the task as owned
+        when(taskDao.isTaskOwner(id, id)).thenReturn(true);
 
         // Then: Assert the expected results and verify the interactions with the mocks
-        // Assert that taskBean.taskBelongsToUser returns true when called with the test token and id
-        assertTrue(taskBean.taskBelongsToUser(token, id));
+        // Assert that taskBean.taskBelongsToUser returns true when called with the session of the owner and id
+        assertTrue(taskBean.taskBelongsToUser(session, id));
+
+        // Verify that the user was not looked up again, the session already identifies it
+        verifyNoInteractions(userDao);
+        // Verify that ownership was checked with one query instead of loading the task
+        verify(taskDao).isTaskOwner(id, id);
+        verify(taskDao, never()).findTaskById(anyInt());
+    }
 
-        // Verify that userDao.findUserByToken was called with the test token
-        verify(userDao).findUserByToken(token);
-        // Verify that taskDao.findTaskById was called with the test id
-        verify(taskDao).findTaskById(id);
+    @Test
+    void testRestoreAllTasksRunsChunksUntilTheTrashIsEmpty() {
+        // When: the first chunk is full and the second one is not
+        TaskState inactive = new TaskState(1, 2, 1, 5, 100, false);
+        when(taskDao.restoreInactiveTasks(TaskBean.BULK_CHUNK_SIZE))
+                .thenReturn(Collections.nCopies(TaskBean.BULK_CHUNK_SIZE, inactive), Collections.nCopies(5, inactive));
+
+        // Then: the number of restored tasks is the sum of both chunks, and each restored task is moved in the counters
+        // instead of counting every task again
+        assertEquals(TaskBean.BULK_CHUNK_SIZE + 5, taskBean.restoreAllTasks());
+        verify(taskDao, times(2)).restoreInactiveTasks(TaskBean.BULK_CHUNK_SIZE);
+        verify(taskDao, never()).getAllTasks();
+        ArgumentCaptor<TaskState> restored = ArgumentCaptor.forClass(TaskState.class);
+        verify(taskCounterBean, times(TaskBean.BULK_CHUNK_SIZE + 5)).move(same(inactive), restored.capture());
+        assertTrue(restored.getValue().isActive());
+        verify(taskCounterBean, never()).load();
+    }
+
+    @Test
+    void testDeleteAllTasksStopsOnEmptyChunk() {
+        // When: there are no inactive tasks
+        when(taskDao.deleteInactiveTasks(TaskBean.BULK_CHUNK_SIZE)).thenReturn(List.of());
+
+        // Then: nothing is deleted and no task is loaded
+        assertEquals(0, taskBean.deleteAllTasks());
+        verify(taskDao).deleteInactiveTasks(TaskBean.BULK_CHUNK_SIZE);
+        verify(taskDao, never()).remove(any(TaskEntity.class));
+        // And the tag of the tasks is still valid
+        verifyNoInteractions(collectionVersionBean);
     }
 
     @Test
@@ -0,0 +1,69 @@
+package aor.paj.bean;
+
+import aor.paj.dao.TaskDao;
+import aor.paj.utils.TaskState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskCounterBeanTest {
+
+    @Mock
+    private TaskDao taskDao;
+
+    @InjectMocks
+    private TaskCounterBean taskCounterBean;
+
+    @Test
+    void testLoadCountsEveryGroup() {
+        // Given: category 1 has three active tasks of owner 5 and one inactive, category 2 has two active of owner 6
+        when(taskDao.countTasks()).thenReturn(List.of(
+                new Object[]{1, 5, true, 3L},
+                new Object[]{1, 5, false, 1L},
+                new Object[]{2, 6, true, 2L}));
+
+        // When
+        taskCounterBean.load();
+
+        // Then: inactive tasks count for the category, but not in the active counts
+        assertEquals(4, taskCounterBean.countByCategory(1));
+        assertEquals(3, taskCounterBean.countActiveByCategory(1));
+        assertEquals(0, taskCounterBean.countByCategory(9));
+        assertEquals(5, taskCounterBean.countActive());
+        assertEquals(1, taskCounterBean.countInactive());
+        assertEquals(2, taskCounterBean.getActiveByOwner().get(6).sum());
+    }
+
+    @Test
+    void testChangesMoveTheCounts() {
+        // Given: no tasks
+        when(taskDao.countTasks()).thenReturn(List.of());
+        taskCounterBean.load();
+        TaskState created = new TaskState(1, 0, 1, 5, 100, true);
+
+        // When: a task is created, given to owner 6, desactivated and finally deleted
+        taskCounterBean.add(created);
+        TaskState reassigned = new TaskState(1, 1, 1, 6, 100, true);
+        taskCounterBean.move(created, reassigned);
+        assertEquals(0, taskCounterBean.getActiveByOwner().get(5).sum());
+        assertEquals(1, taskCounterBean.getActiveByOwner().get(6).sum());
+        TaskState desactivated = new TaskState(1, 2, 1, 6, 100, false);
+        taskCounterBean.move(reassigned, desactivated);
+        assertEquals(0, taskCounterBean.countActiveByCategory(1));
+        assertEquals(1, taskCounterBean.countByCategory(1));
+        taskCounterBean.remove(desactivated);
+
+        // Then: nothing is left
+        assertEquals(0, taskCounterBean.countByCategory(1));
+        assertEquals(0, taskCounterBean.countActive());
+        assertEquals(0, taskCounterBean.countInactive());
+    }
+}
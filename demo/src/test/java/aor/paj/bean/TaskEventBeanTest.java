@@ -0,0 +1,86 @@
+package aor.paj.bean;
+
+import aor.paj.dto.TaskEventDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskEventBeanTest {
+
+    private final TaskEventBean taskEventBean = new TaskEventBean();
+
+    @Test
+    void testSubscriberGetsPublishedEventsInOrder() {
+        // Given: a board connected without Last-Event-ID
+        List<TaskEventBean.Event> received = new ArrayList<>();
+        taskEventBean.subscribe(null, received::add);
+
+        // When: two tasks change
+        taskEventBean.publish(TaskEventDto.STATUS, 7, 200, null);
+        taskEventBean.publish(TaskEventDto.DELETED, 8, null, null);
+
+        // Then: both events arrive in order, with increasing ids and only the fields they need
+        assertEquals(2, received.size());
+        assertEquals(TaskEventDto.STATUS, received.get(0).getType());
+        assertEquals("{\"status\":200,\"taskId\":7,\"type\":\"status\"}", received.get(0).getData());
+        assertEquals(received.get(0).getId() + 1, received.get(1).getId());
+    }
+
+    @Test
+    void testReconnectResumesAfterLastEventId() {
+        // Given: a board that saw the first event and then lost the connection
+        List<TaskEventBean.Event> first = new ArrayList<>();
+        Consumer<TaskEventBean.Event> connection = first::add;
+        taskEventBean.subscribe(null, connection);
+        taskEventBean.publish(TaskEventDto.DESACTIVATED, 1, null, null);
+        taskEventBean.unsubscribe(connection);
+        long lastSeen = first.get(0).getId();
+        taskEventBean.publish(TaskEventDto.DESACTIVATED, 2, null, null);
+        taskEventBean.publish(TaskEventDto.DESACTIVATED, 3, null, null);
+
+        // When: it reconnects with Last-Event-ID
+        List<TaskEventBean.Event> resumed = new ArrayList<>();
+        taskEventBean.subscribe(lastSeen, resumed::add);
+
+        // Then: it gets exactly the two events it missed
+        assertEquals(2, resumed.size());
+        assertEquals(lastSeen + 1, resumed.get(0).getId());
+        assertEquals(lastSeen + 2, resumed.get(1).getId());
+    }
+
+    @Test
+    void testReconnectTooFarBehindGetsReload() {
+        // Given: a board whose last event is no longer in the history
+        List<TaskEventBean.Event> first = new ArrayList<>();
+        taskEventBean.subscribe(null, first::add);
+        taskEventBean.publish(TaskEventDto.DESACTIVATED, 1, null, null);
+        long lastSeen = first.get(0).getId();
+        for (int i = 0; i <= TaskEventBean.HISTORY_SIZE; i++) {
+            taskEventBean.publish(TaskEventDto.DESACTIVATED, i, null, null);
+        }
+
+        // When: it reconnects
+        List<TaskEventBean.Event> resumed = new ArrayList<>();
+        taskEventBean.subscribe(lastSeen, resumed::add);
+
+        // Then: it is told to load the board again, from the current id
+        assertEquals(1, resumed.size());
+        assertEquals(TaskEventDto.RELOAD, resumed.get(0).getType());
+        assertEquals(lastSeen + TaskEventBean.HISTORY_SIZE + 1, resumed.get(0).getId());
+    }
+
+    @Test
+    void testUnknownLastEventIdGetsReload() {
+        // When: a client of a previous run of the server reconnects
+        List<TaskEventBean.Event> resumed = new ArrayList<>();
+        taskEventBean.subscribe(-1L, resumed::add);
+
+        // Then: it loads the board again
+        assertEquals(1, resumed.size());
+        assertEquals(TaskEventDto.RELOAD, resumed.get(0).getType());
+    }
+}
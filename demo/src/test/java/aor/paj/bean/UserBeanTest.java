@@ -2,23 +2,34 @@ package aor.paj.bean;
 
 import aor.paj.bean.UserBean;
 import aor.paj.dao.UserDao;
+import aor.paj.dto.BatchResultDto;
+import aor.paj.dto.SessionDto;
 import aor.paj.dto.UserDto;
 import aor.paj.dao.TaskDao;
 import aor.paj.dto.UserPasswordUpdateDto;
 import aor.paj.entity.TaskEntity;
 import aor.paj.entity.UserEntity;
 import aor.paj.mapper.UserMapper;
+import aor.paj.utils.TaskState;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mindrot.jbcrypt.BCrypt;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,12 +38,32 @@ class UserBeanTest {
     @Mock
     private UserDao userDao;
 
+    // Mock the catalogue of categories
+    @Mock
+    private CategoryCatalogueBean categoryCatalogueBean;
+
     @Mock
     private TaskDao taskDao; // Mock the TaskDao
 
     @Mock
     private UserMapper userMapper; // Mock the UserMapper
 
+    @Mock
+    private SessionCacheBean sessionCacheBean; // Mock the SessionCacheBean
+
+    @Mock
+    private CollectionVersionBean collectionVersionBean;
+
+    @Mock
+    private TaskEventBean taskEventBean;
+
+    @Mock
+    private TaskCounterBean taskCounterBean;
+
+    // Real hashing with the lowest cost, so the tests stay fast
+    @Spy
+    private PasswordHashBean passwordHashBean = new PasswordHashBean(4);
+
     @InjectMocks
     private UserBean userBean;
 
@@ -54,6 +85,24 @@ class UserBeanTest {
 
         // Verify that userDao.findUserByToken was called with the test token
         verify(userDao).findUserByToken(token);
+
+        // Verify that the session loaded from the database was cached for the next requests
+        verify(sessionCacheBean).put(eq(token), any(SessionDto.class), anyLong());
+    }
+
+    @Test
+    void testIsValidUserByTokenFromCache() {
+        // Given: Define the test inputs
+        String token = "testToken";
+
+        // When: Define the behavior of the mocks
+        // When sessionCacheBean.get is called with the test token, return an active session
+        when(sessionCacheBean.get(token)).thenReturn(new SessionDto(3, "testUser", "dev", true));
+
+        // Then: Assert the expected results and verify the interactions with the mocks
+        // Assert that userBean.isValidUserByToken returns true without querying the database
+        assertTrue(userBean.isValidUserByToken(token));
+        verify(userDao, never()).findUserByToken(token);
     }
 
     @Test
@@ -106,12 +155,35 @@ class UserBeanTest {
 
         // Verify that userDao.merge was called with the test UserEntity
         verify(userDao).merge(userEntity);
+
+        // Verify that the new token was cached so the next request does not hit the database
+        verify(sessionCacheBean).put(eq(userEntity.getToken()), any(SessionDto.class));
+    }
+
+    @Test
+    void testLoginRehashesWhenCostChanged() {
+        // Given: a user whose password was hashed with another cost than the configured one
+        String username = "testUser";
+        String password = "testPassword";
+        UserEntity userEntity = new UserEntity();
+        userEntity.setUsername(username);
+        userEntity.setPassword(BCrypt.hashpw(password, BCrypt.gensalt(5)));
+
+        // When: the user logs in
+        when(userDao.findUserByUsername(username)).thenReturn(userEntity);
+        assertNotNull(userBean.login(username, password));
+
+        // Then: the password is saved again with the configured cost and still matches
+        assertFalse(passwordHashBean.needsRehash(userEntity.getPassword()));
+        assertTrue(BCrypt.checkpw(password, userEntity.getPassword()));
+        verify(passwordHashBean).rehash(password);
+        verify(userDao).merge(userEntity);
     }
 
     @Test
     void testUpdatePassword() {
         // Given: Define the test inputs
-        String token = "testToken";
+        SessionDto session = new SessionDto(5, "testUser", "dev", true);
         String oldPassword = "oldPassword";
         String newPassword = "newPassword";
         String hashedOldPassword = BCrypt.hashpw(oldPassword, BCrypt.gensalt());
@@ -124,15 +196,15 @@ class UserBeanTest {
         userEntity.setPassword(hashedOldPassword);
 
         // When: Define the behavior of the mocks
-        // When userDao.findUserByToken is called with the test token, return the test UserEntity
-        when(userDao.findUserByToken(token)).thenReturn(userEntity);
+        // When userDao.find is called with the id of the session, return the test UserEntity
+        when(userDao.find(session.getId())).thenReturn(userEntity);
 
         // Then: Assert the expected results and verify the interactions with the mocks
-        // Assert that userBean.updatePassword returns true when called with the test UserPasswordUpdateDto and token
-        assertTrue(userBean.updatePassword(userPasswordUpdateDto, token));
+        // Assert that userBean.updatePassword returns true when called with the test UserPasswordUpdateDto and session
+        assertTrue(userBean.updatePassword(userPasswordUpdateDto, session));
 
-        // Verify that userDao.findUserByToken was called with the test token
-        verify(userDao).findUserByToken(token);
+        // Verify that userDao.find was called with the id of the session
+        verify(userDao).find(session.getId());
 
         // Verify that userDao.merge was called with the test UserEntity
         verify(userDao).merge(userEntity);
@@ -152,17 +224,14 @@ class UserBeanTest {
         newUserEntity.setId(2);
         newUserEntity.setUsername(newUsername);
 
-        TaskEntity taskEntity = new TaskEntity();
-        taskEntity.setId(1);
-        taskEntity.setOwner(oldUserEntity);
-
         // When: Define the behavior of the mocks
         // When userDao.findUserByUsername is called with the old or new username, return the corresponding UserEntity
         when(userDao.findUserByUsername(oldUsername)).thenReturn(oldUserEntity);
         when(userDao.findUserByUsername(newUsername)).thenReturn(newUserEntity);
 
-        // When taskDao.findTaskByOwnerId is called with the old user id, return a list containing the test TaskEntity
-        when(taskDao.findTaskByOwnerId(oldUserEntity.getId())).thenReturn(Collections.singletonList(taskEntity));
+        // When taskDao.changeTasksOwner is called with the old user id and the new user, report one task moved
+        TaskState task = new TaskState(7, 0, 3, oldUserEntity.getId(), 100, true);
+        when(taskDao.changeTasksOwner(oldUserEntity.getId(), newUserEntity, TaskBean.BULK_CHUNK_SIZE)).thenReturn(List.of(task));
 
         // Then: Assert the expected results and verify the interactions with the mocks
         // Assert that userBean.changeTaskOwner returns true when called with the old and new usernames
@@ -172,20 +241,95 @@ class UserBeanTest {
         verify(userDao).findUserByUsername(oldUsername);
         verify(userDao).findUserByUsername(newUsername);
 
-        // Verify that taskDao.findTaskByOwnerId was called with the old user id
-        verify(taskDao).findTaskByOwnerId(oldUserEntity.getId());
+        // Verify that the tasks were moved with one bulk update instead of loading and merging each task
+        verify(taskDao).changeTasksOwner(oldUserEntity.getId(), newUserEntity, TaskBean.BULK_CHUNK_SIZE);
+        verify(taskDao, never()).findTaskByOwnerId(anyInt());
+        verify(taskDao, never()).merge(any(TaskEntity.class));
 
-        // Verify that taskDao.merge was called with the test TaskEntity
-        verify(taskDao).merge(taskEntity);
+        // Verify that the moved task was moved to the new owner in the counters, without counting every task again
+        ArgumentCaptor<TaskState> moved = ArgumentCaptor.forClass(TaskState.class);
+        verify(taskCounterBean).move(same(task), moved.capture());
+        assertEquals(newUserEntity.getId(), moved.getValue().getOwnerId());
+        verify(taskCounterBean, never()).load();
     }
 
+    @Test
+    void testHasPermissionToEdit() {
+        // Given: a dev session and a task that he owns
+        SessionDto session = new SessionDto(3, "devUser", "dev", true);
+        when(taskDao.isTaskOwner(10, 3)).thenReturn(true);
+
+        // Then: the dev can edit his task, with one ownership query and without loading his tasks
+        assertTrue(userBean.hasPermissionToEdit(session, 10));
+        verify(taskDao).isTaskOwner(10, 3);
+        verify(taskDao, never()).findTaskByOwnerId(anyInt());
+    }
 
+    @Test
+    void testHasPermissionToEditAsScrumMaster() {
+        // Given: a scrum master session
+        SessionDto session = new SessionDto(2, "smUser", "sm", true);
 
+        // Then: the role from the session is enough, the database is not queried
+        assertTrue(userBean.hasPermissionToEdit(session, 10));
+        verifyNoInteractions(taskDao);
+    }
 
+    @Test
+    void testGetUsersOwnersIsCachedUntilInvalidated() {
+        // Given: one user that owns two active tasks
+        UserEntity owner = new UserEntity();
+        owner.setId(3);
+        owner.setUsername("owner");
+        owner.setActive(true);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{owner, 2L});
+        when(userDao.findActiveTaskOwners()).thenReturn(rows);
+
+        // When: the owners are read twice
+        List<UserDto> owners = userBean.getUsersOwners();
+        userBean.getUsersOwners();
+
+        // Then: one grouped query answered both calls, and no task was loaded
+        assertEquals(1, owners.size());
+        assertEquals("owner", owners.get(0).getUsername());
+        assertEquals(2, owners.get(0).getActiveTasks());
+        verify(userDao, times(1)).findActiveTaskOwners();
+        verifyNoInteractions(taskDao);
+
+        // When: a change to the tasks invalidates the list
+        userBean.invalidateOwners();
+        userBean.getUsersOwners();
+
+        // Then: the next read goes back to the database
+        verify(userDao, times(2)).findActiveTaskOwners();
+    }
 
+    @Test
+    void testImportUsersRefusesUnknownRolesAndWeakHashes() {
+        // Given: rows with a role that does not exist, a hash weaker than the configured cost and a value shaped like no hash
+        UserDto badRole = importedUser("user1", "password", "admin");
+        UserDto weakHash = importedUser("user2", "$2a$03$" + BCrypt.hashpw("password", BCrypt.gensalt(4)).substring(7), "po");
+        UserDto notAHash = importedUser("user3", "$2a$04$short", "dev");
+        when(userDao.findUsersByUsernames(any())).thenReturn(Collections.emptyList());
+        when(userDao.findExistingEmails(any())).thenReturn(Collections.emptyList());
+
+        // When: the rows are imported
+        List<BatchResultDto> results = userBean.importUsers(List.of(badRole, weakHash, notAHash));
+
+        // Then: every row is refused and nothing is saved
+        for (BatchResultDto result : results) {
+            assertEquals(400, result.getStatus());
+        }
+        verify(userDao, never()).persistAll(any());
+    }
 
-
-
-
-
-}
\ No newline at end of file
+    private static UserDto importedUser(String username, String password, String role) {
+        UserDto userDto = new UserDto();
+        userDto.setUsername(username);
+        userDto.setEmail(username + "@example.com");
+        userDto.setPassword(password);
+        userDto.setRole(role);
+        return userDto;
+    }
+}
@@ -0,0 +1,191 @@
+package aor.paj.dao;
+
+import aor.paj.entity.CategoryEntity;
+import aor.paj.entity.IdBlockEntity;
+import aor.paj.entity.TaskEntity;
+import aor.paj.entity.UserEntity;
+import aor.paj.utils.IdSequence;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.Parameter;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.Query;
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Runs the Flyway migrations on an in-memory H2 database and checks the plan of every Task.* named query,
+//so a query that stops matching the indexes of V2__task_board_indexes.sql fails the build
+class TaskQueryPlanTest {
+
+    private static final String URL = "jdbc:h2:mem:taskplan;MODE=MySQL;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1";
+
+    //Queries that read the whole table on purpose
+    private static final Set<String> FULL_SCANS_ALLOWED = Set.of("Task.getAllTasks", "Task.exportTasks", "Task.countTasks");
+
+    private static final List<String> statements = new ArrayList<>();
+
+    private static EntityManagerFactory emf;
+
+    //Keeps the SQL that Hibernate sends, to explain it afterwards
+    public static class SqlRecorder implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure().dataSource(URL, "sa", "").locations("classpath:db/migration").load().migrate();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("jakarta.persistence.jdbc.url", URL);
+        properties.put("jakarta.persistence.jdbc.user", "sa");
+        properties.put("hibernate.session_factory.statement_inspector", SqlRecorder.class.getName());
+        emf = Persistence.createEntityManagerFactory("TestPersistenceUnit", properties);
+    }
+
+    @AfterAll
+    static void close() {
+        emf.close();
+    }
+
+    @TestFactory
+    List<DynamicTest> namedQueriesUseAnIndex() {
+        List<DynamicTest> tests = new ArrayList<>();
+        for (NamedQuery namedQuery : TaskEntity.class.getAnnotationsByType(NamedQuery.class)) {
+            tests.add(DynamicTest.dynamicTest(namedQuery.name(), () -> {
+                String plan = explain(sqlOf(namedQuery));
+                if (FULL_SCANS_ALLOWED.contains(namedQuery.name())) {
+                    return;
+                }
+                assertFalse(plan.contains("tableScan"), namedQuery.name() + " reads the whole table:\n" + plan);
+            }));
+        }
+        return tests;
+    }
+
+    //IdBlockDao.allocateBlock relies on the rows seeded by V4__seed_id_blocks.sql, it never has to insert one
+    @Test
+    void migrationsSeedAnIdBlockForEachSequence() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (IdSequence sequence : IdSequence.values()) {
+                assertNotNull(em.find(IdBlockEntity.class, sequence.getName()), "No id_block row for " + sequence.getName());
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    //The batched status update of PUT /tasks/status is plain SQL, so it is checked apart from the named queries
+    @Test
+    void batchedStatusUpdateUsesThePrimaryKey() throws Exception {
+        String plan = explain(TaskDao.UPDATE_STATUS_SQL);
+        assertFalse(plan.contains("tableScan"), "The batched status update reads the whole table:\n" + plan);
+    }
+
+    //The bulk operations move the counters by the tasks these return, so the rows must stay locked until the change commits
+    @Test
+    void bulkOperationsLockTheTasksTheyRead() {
+        for (NamedQuery namedQuery : TaskEntity.class.getAnnotationsByType(NamedQuery.class)) {
+            if (namedQuery.name().startsWith("Task.lock")) {
+                assertTrue(sqlOf(namedQuery).toLowerCase().contains("for update"), namedQuery.name() + " does not lock the rows");
+            }
+        }
+    }
+
+    //Function that runs the named query with placeholder values, inside a transaction that is rolled back, and returns its SQL
+    private static String sqlOf(NamedQuery namedQuery) {
+        String name = namedQuery.name();
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Query query = em.createNamedQuery(name);
+            for (Parameter<?> parameter : query.getParameters()) {
+                query.setParameter(parameter.getName(), placeholder(em, parameter.getParameterType()));
+            }
+            statements.clear();
+            String statement = namedQuery.query().trim().toUpperCase();
+            if (statement.startsWith("UPDATE") || statement.startsWith("DELETE")) {
+                query.executeUpdate();
+            } else {
+                query.getResultList();
+            }
+            assertEquals(1, statements.size(), name + " sent more than one statement: " + statements);
+            return statements.get(0);
+        } finally {
+            em.getTransaction().rollback();
+            em.close();
+        }
+    }
+
+    private static Object placeholder(EntityManager em, Class<?> type) {
+        if (type == UserEntity.class) {
+            return em.getReference(UserEntity.class, 1);
+        }
+        if (type == CategoryEntity.class) {
+            return em.getReference(CategoryEntity.class, 1);
+        }
+        if (type == String.class) {
+            return "title";
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.of(2024, 1, 1);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return true;
+        }
+        return 1;
+    }
+
+    //Function that asks H2 for the plan of the statement, binding a value of the type of each parameter
+    private static String explain(String sql) throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            ParameterMetaData metaData = statement.getParameterMetaData();
+            for (int i = 1; i <= metaData.getParameterCount(); i++) {
+                switch (metaData.getParameterType(i)) {
+                    case Types.BOOLEAN:
+                    case Types.BIT:
+                        statement.setBoolean(i, true);
+                        break;
+                    case Types.DATE:
+                        statement.setDate(i, Date.valueOf(LocalDate.of(2024, 1, 1)));
+                        break;
+                    case Types.VARCHAR:
+                        statement.setString(i, "title");
+                        break;
+                    default:
+                        statement.setInt(i, 1);
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+}
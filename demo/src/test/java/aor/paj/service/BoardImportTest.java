@@ -0,0 +1,117 @@
+package aor.paj.service;
+
+import aor.paj.dto.BatchResultDto;
+import aor.paj.dto.ImportResultDto;
+import aor.paj.dto.TaskDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardImportTest {
+
+    private static List<TaskDto> board(int size) {
+        List<TaskDto> tasks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            //Commas, quotes and line breaks, the text CSV has to quote
+            tasks.add(new TaskDto(i, "Task " + i, "Descrição, com \"aspas\"\nem duas linhas " + i, LocalDate.of(2024, 1, 1).plusDays(i % 30),
+                    i % 2 == 0 ? null : LocalDate.of(2024, 3, 1), 200, 300, "Backend", "user" + i % 7, i % 3 != 0, 0));
+        }
+        return tasks;
+    }
+
+    private static byte[] export(TransferFormat format, List<TaskDto> tasks) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BoardExport<TaskDto>(format, BoardColumns.TASKS, consumer -> tasks.forEach(consumer)).write(out);
+        return out.toByteArray();
+    }
+
+    //Importer that accepts every row and keeps what it received
+    private static ImportResultDto importAll(TransferFormat format, byte[] file, int chunkSize, List<TaskDto> received, List<Integer> chunkSizes)
+            throws IOException {
+        return new BoardImport<>(format, BoardColumns.TASKS, chunkSize, chunk -> {
+            chunkSizes.add(chunk.size());
+            received.addAll(chunk);
+            List<BatchResultDto> results = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(new BatchResultDto(i, i, 201, "Task is added"));
+            }
+            return results;
+        }).run(new ByteArrayInputStream(file));
+    }
+
+    private static void assertSameTasks(List<TaskDto> expected, List<TaskDto> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TaskDto e = expected.get(i);
+            TaskDto a = actual.get(i);
+            assertEquals(e.getTitle(), a.getTitle());
+            assertEquals(e.getDescription(), a.getDescription());
+            assertEquals(e.getInitialDate(), a.getInitialDate());
+            assertEquals(e.getFinalDate(), a.getFinalDate());
+            assertEquals(e.getStatus(), a.getStatus());
+            assertEquals(e.getPriority(), a.getPriority());
+            assertEquals(e.getCategory(), a.getCategory());
+            assertEquals(e.getOwner(), a.getOwner());
+            assertEquals(e.isActive(), a.isActive());
+        }
+    }
+
+    @Test
+    void testCsvRoundTripInChunks() throws IOException {
+        // Given: a board exported as CSV
+        List<TaskDto> tasks = board(2_500);
+        byte[] file = export(TransferFormat.CSV, tasks);
+
+        // When: it is imported 1000 rows at a time
+        List<TaskDto> received = new ArrayList<>();
+        List<Integer> chunkSizes = new ArrayList<>();
+        ImportResultDto result = importAll(TransferFormat.CSV, file, 1_000, received, chunkSizes);
+
+        // Then: every task comes back the same, in three chunks
+        assertSameTasks(tasks, received);
+        assertEquals(List.of(1_000, 1_000, 500), chunkSizes);
+        assertEquals(2_500, result.getImported());
+        assertEquals(3, result.getChunks());
+    }
+
+    @Test
+    void testNdjsonRoundTrip() throws IOException {
+        // Given: a board exported as NDJSON, one task per line
+        List<TaskDto> tasks = board(100);
+        byte[] file = export(TransferFormat.NDJSON, tasks);
+        assertEquals(100, new String(file, StandardCharsets.UTF_8).split("\n").length);
+
+        // When: it is imported
+        List<TaskDto> received = new ArrayList<>();
+        ImportResultDto result = importAll(TransferFormat.NDJSON, file, 1_000, received, new ArrayList<>());
+
+        // Then: every task comes back the same
+        assertSameTasks(tasks, received);
+        assertEquals(100, result.getImported());
+    }
+
+    @Test
+    void testRefusedAndBrokenRowsAreReportedWithTheirLine() throws IOException {
+        // Given: a file with a broken line between two tasks, the second of them refused by the importer
+        String file = "{\"title\":\"First\"}\n{not json\n\n{\"title\":\"Second\"}\n";
+
+        // When: it is imported
+        ImportResultDto result = new BoardImport<>(TransferFormat.NDJSON, BoardColumns.TASKS, 10, chunk -> List.of(
+                new BatchResultDto(0, 1, 201, "Task is added"),
+                new BatchResultDto(1, null, 409, "Title is unique"))).run(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)));
+
+        // Then: the blank line is ignored and the others are counted with their line
+        assertEquals(3, result.getRead());
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getSkipped());
+        assertEquals(List.of("Line 2: Invalid JSON", "Line 4: Title is unique"), result.getErrors());
+    }
+}
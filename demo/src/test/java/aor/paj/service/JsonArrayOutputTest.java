@@ -0,0 +1,49 @@
+package aor.paj.service;
+
+import aor.paj.dto.TaskDto;
+import aor.paj.utils.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayOutputTest {
+
+    @Test
+    void testStreamedArrayMatchesSerializedList() throws IOException {
+        // Given: a board big enough to go through the buffer many times
+        List<TaskDto> tasks = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            tasks.add(new TaskDto(i, "Task " + i, "Descrição " + i, LocalDate.of(2024, 1, 1).plusDays(i % 30),
+                    i % 2 == 0 ? null : LocalDate.of(2024, 3, 1), 100, 200, "Backend", "user" + i % 7, true, 0));
+        }
+
+        // When: the tasks are handed to the output one at a time
+        String streamed = write(new JsonArrayOutput<TaskDto>(consumer -> tasks.forEach(consumer)));
+
+        // Then: the body is the same JSON the whole list would give
+        assertEquals(JsonUtils.getJsonb().toJson(tasks), streamed);
+    }
+
+    @Test
+    void testEmptySourceWritesEmptyArray() throws IOException {
+        // When: the source has nothing to send
+        String streamed = write(new JsonArrayOutput<TaskDto>(consumer -> Collections.<TaskDto>emptyList().forEach(consumer)));
+
+        // Then: the body is still a valid JSON array
+        assertEquals("[]", streamed);
+    }
+
+    private static String write(JsonArrayOutput<?> output) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        output.write(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,115 @@
+package aor.paj.service;
+
+import aor.paj.bean.TaskEventBean;
+import aor.paj.dto.TaskEventDto;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskEventSinkTest {
+
+    @Mock
+    private SseEventSink sseEventSink;
+
+    @Mock
+    private Sse sse;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private OutboundSseEvent.Builder builder;
+
+    private final TaskEventBean taskEventBean = new TaskEventBean();
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setUp() {
+        when(sse.newEventBuilder()).thenReturn(builder);
+        when(builder.build()).thenReturn(mock(OutboundSseEvent.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sender.shutdownNow();
+    }
+
+    @Test
+    void testOnlyOneEventIsSentAtATime() {
+        // Given: a client that has not finished receiving the first event
+        CompletableFuture<Object> firstSend = new CompletableFuture<>();
+        doReturn(firstSend, CompletableFuture.completedFuture(null)).when(sseEventSink).send(any());
+        TaskEventSink sink = new TaskEventSink(sseEventSink, sse, taskEventBean, sender);
+        taskEventBean.subscribe(null, sink);
+
+        // When: two tasks change
+        taskEventBean.publish(TaskEventDto.DELETED, 1, null, null);
+        taskEventBean.publish(TaskEventDto.DELETED, 2, null, null);
+
+        // Then: the second event waits for the first one
+        verify(sseEventSink, after(200).times(1)).send(any());
+
+        // When: the first event is delivered
+        firstSend.complete(null);
+
+        // Then: the second one follows
+        verify(sseEventSink, timeout(5_000).times(2)).send(any());
+    }
+
+    @Test
+    void testSlowClientIsDisconnected() {
+        // Given: a client that never finishes receiving
+        doReturn(new CompletableFuture<>()).when(sseEventSink).send(any());
+        TaskEventSink sink = new TaskEventSink(sseEventSink, sse, taskEventBean, sender);
+        taskEventBean.subscribe(null, sink);
+
+        // When: more events arrive than it may have waiting
+        for (int i = 0; i <= TaskEventSink.MAX_PENDING + 1; i++) {
+            taskEventBean.publish(TaskEventDto.DELETED, i, null, null);
+        }
+
+        // Then: the connection is closed and the publisher no longer waits on it
+        verify(sseEventSink, timeout(5_000)).close();
+        assertEquals(0, taskEventBean.getSubscriberCount());
+    }
+
+    @Test
+    void testPublisherDoesNotWaitForABlockedWrite() throws Exception {
+        // Given: a client whose connection blocks the thread that writes to it
+        CountDownLatch unblock = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            unblock.await(5, TimeUnit.SECONDS);
+            return CompletableFuture.completedFuture(null);
+        }).when(sseEventSink).send(any());
+        TaskEventSink sink = new TaskEventSink(sseEventSink, sse, taskEventBean, sender);
+        taskEventBean.subscribe(null, sink);
+
+        // When: two tasks change while the first write is blocked
+        CompletableFuture<Void> published = CompletableFuture.runAsync(() -> {
+            taskEventBean.publish(TaskEventDto.DELETED, 1, null, null);
+            taskEventBean.publish(TaskEventDto.DELETED, 2, null, null);
+        });
+
+        // Then: publishing returns at once, and the second event is written once the connection moves again
+        published.get(1, TimeUnit.SECONDS);
+        verify(sseEventSink, timeout(5_000).times(1)).send(any());
+        unblock.countDown();
+        verify(sseEventSink, timeout(5_000).times(2)).send(any());
+    }
+}